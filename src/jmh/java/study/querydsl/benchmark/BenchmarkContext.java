@@ -0,0 +1,53 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.QuerydslApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ *
+ * 메모리 H2 를 쓰고, SQL 로그와 InitMember(local 프로필) 는 끈다.
+ * 데이터는 JPA 를 거치지 않고 JDBC 배치로 넣는다.
+ */
+public class BenchmarkContext {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public static ConfigurableApplicationContext start(String name) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=bench",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--decorator.datasource.p6spy.enable-logging=false");
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> teams = new ArrayList<>();
+        for (long i = 1; i <= teamCount; i++) {
+            teams.add(new Object[]{i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into team (id, name) values (?, ?)", teams);
+
+        List<Object[]> members = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= memberCount; i++) {
+            members.add(new Object[]{i, "member" + i, (int) (i % 100), i % teamCount + 1});
+            if (members.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+                members.clear();
+            }
+        }
+        if (!members.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", members);
+        }
+        jdbcTemplate.execute("analyze");
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPageSimple / searchPageComplex / searchPageComplex_lamda 비교
+ *
+ * Throughput 과 SampleTime(p50, p90, p99 ...) 을 같이 측정하고, build.gradle 에서 gc 프로파일러로 할당량도 잰다.
+ * 데이터 수, 페이지 위치, 검색 조건 조합별로 결과가 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    public enum Depth {
+        FIRST, MIDDLE, LAST
+    }
+
+    public enum Filter {
+        NONE, TEAM, AGE, ALL
+    }
+
+    @Param({"10000", "1000000"})
+    int memberCount;
+
+    @Param({"10"})
+    int teamCount;
+
+    @Param({"FIRST", "MIDDLE", "LAST"})
+    Depth depth;
+
+    @Param({"NONE", "TEAM", "AGE", "ALL"})
+    Filter filter;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    PageRequest pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("search");
+        BenchmarkContext.seed(context, memberCount, teamCount);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = condition(filter);
+        pageable = PageRequest.of(page(depth, filteredCount()), PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex_lamda() {
+        return memberRepository.searchPageComplex_lamda(condition, pageable);
+    }
+
+    /**
+     * 검색 조건에 맞는 회원 수. 페이지 위치는 전체 회원 수가 아니라 이 값으로 정해야 빈 페이지를 재지 않는다.
+     */
+    private long filteredCount() {
+        return memberRepository.searchPageComplex(condition, PageRequest.of(0, 1)).getTotalElements();
+    }
+
+    private int page(Depth depth, long filteredCount) {
+        int lastPage = (int) Math.max(0, (filteredCount + PAGE_SIZE - 1) / PAGE_SIZE - 1);
+        switch (depth) {
+            case MIDDLE:
+                return lastPage / 2;
+            case LAST:
+                return lastPage;
+            default:
+                return 0;
+        }
+    }
+
+    private MemberSearchCondition condition(Filter filter) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (filter == Filter.TEAM || filter == Filter.ALL) {
+            condition.setTeamName("team1");
+        }
+        if (filter == Filter.AGE || filter == Filter.ALL) {
+            condition.setAgeGoe(20);
+            condition.setAgeLoe(40);
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberQueries.MEMBER_TEAM_DTO;
+
+/**
+ * 검색 쿼리 객체를 만드는 비용 (실행은 하지 않는다)
+ *
+ * perRequest : 요청마다 JPAQueryFactory 와 프로젝션을 새로 만든다. (이전 MemberRepositoryImpl)
+ * shared     : 스프링 빈 JPAQueryFactory(HQLTemplates) + MemberQueries 의 미리 만든 프로젝션
+ * gc 프로파일러의 gc.alloc.rate.norm (쿼리 하나당 할당 바이트)을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuildBenchmark {
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory sharedFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("querybuild");
+        em = context.getBean(EntityManager.class);
+        sharedFactory = context.getBean(JPAQueryFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> perRequest() {
+        return new JPAQueryFactory(em)
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20), member.age.loe(30));
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> shared() {
+        return sharedFactory
+                .select(MEMBER_TEAM_DTO)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20), member.age.loe(30));
+    }
+}
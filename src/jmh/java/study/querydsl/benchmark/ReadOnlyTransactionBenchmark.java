@@ -0,0 +1,84 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기/쓰기 트랜잭션 vs 읽기 전용 트랜잭션
+ *
+ * 엔티티 조회는 읽기/쓰기 트랜잭션에서 스냅샷 복사와 커밋 시 변경 감지 비용이 든다.
+ * gc 프로파일러의 gc.alloc.rate.norm (요청당 할당 바이트)과 평균 시간을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlyTransactionBenchmark {
+
+    @Param({"10000"})
+    int memberCount;
+
+    @Param({"100", "1000"})
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("readonly");
+        BenchmarkContext.seed(context, memberCount, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int loadEntitiesReadWrite() {
+        return readWrite.execute(status -> memberRepository.findAll(PageRequest.of(0, pageSize)).getNumberOfElements());
+    }
+
+    @Benchmark
+    public int loadEntitiesReadOnly() {
+        return readOnly.execute(status -> memberRepository.findAll(PageRequest.of(0, pageSize)).getNumberOfElements());
+    }
+
+    @Benchmark
+    public int searchReadWrite() {
+        return readWrite.execute(status -> memberRepository.searchPageComplex(condition, PageRequest.of(0, pageSize)).getNumberOfElements());
+    }
+
+    @Benchmark
+    public int searchReadOnly() {
+        return readOnly.execute(status -> memberRepository.searchPageComplex(condition, PageRequest.of(0, pageSize)).getNumberOfElements());
+    }
+}
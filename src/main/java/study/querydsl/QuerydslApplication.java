@@ -1,5 +1,6 @@
 package study.querydsl;
 
+import com.querydsl.jpa.HQLTemplates;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -14,8 +15,10 @@ public class QuerydslApplication {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	// 레포지토리들이 같이 쓴다. em 은 트랜잭션별 실제 EntityManager 로 위임하는 프록시라 싱글톤으로 써도 안전하다.
+	// 템플릿을 지정하지 않으면 쿼리를 만들 때마다 em 으로 JPA 구현체를 찾는다. (하이버네이트 고정이라 HQLTemplates)
 	@Bean
 	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+		return new JPAQueryFactory(HQLTemplates.DEFAULT, em);
 	}
 }
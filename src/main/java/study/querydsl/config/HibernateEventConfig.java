@@ -0,0 +1,39 @@
+package study.querydsl.config;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.entity.MemberTeamViewSyncListener;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 하이버네이트 이벤트 리스너 등록
+ *
+ * 읽기 모델(member_team_view)을 쓸 때만 (member.search.read-model.enabled=true) 동기화 리스너를 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.search.read-model.enabled", havingValue = "true")
+public class HibernateEventConfig {
+
+    private final EntityManagerFactory emf;
+
+    public HibernateEventConfig(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        MemberTeamViewSyncListener listener = new MemberTeamViewSyncListener();
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * replica 상태를 주기적으로 확인한다.
+ *
+ * lagQuery 는 replica 에서 실행해서 지연 시간(초)을 돌려주는 쿼리다. (예: MySQL 은 seconds_behind_source 를 읽는 쿼리)
+ * 지정하지 않으면 "select 1" 로 접속 가능 여부만 본다. (로컬의 H2 두 개는 복제 관계가 없어서 지연을 잴 수 없다)
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean replicaUsable = true;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration interval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery == null || lagQuery.isEmpty() ? "select 1" : lagQuery;
+        this.maxLagSeconds = lagQuery == null || lagQuery.isEmpty() ? Long.MAX_VALUE : maxLag.getSeconds();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        boolean usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            usable = rs.next() && rs.getLong(1) <= maxLagSeconds;
+        } catch (Exception e) {
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            log.warn("replica {}", usable ? "is back, routing reads to replica" : "unavailable or lagging, routing reads to primary");
+        }
+        replicaUsable = usable;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
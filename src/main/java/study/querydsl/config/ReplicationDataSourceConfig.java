@@ -0,0 +1,83 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * primary / replica 데이터소스 라우팅 (spring.datasource.replica.url 이 있을 때만)
+ *
+ * primary 는 spring.datasource.*, replica 는 spring.datasource.replica.* 를 쓴다. 두 풀 모두 spring.datasource.hikari.* 설정을 받는다.
+ * 풀은 빈으로 등록하지 않는다. (DataSource 빈이 여러 개면 p6spy 가 각각 감싸서 SQL 이 두 번 기록된다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicationDataSourceConfig implements DisposableBean {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaLagMonitor lagMonitor;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 @Value("${spring.datasource.replica.url}") String replicaUrl,
+                                 @Value("${spring.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                 @Value("${spring.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                 @Value("${spring.datasource.replica.lag-query:}") String lagQuery,
+                                 @Value("${spring.datasource.replica.max-lag:5s}") Duration maxLag,
+                                 @Value("${spring.datasource.replica.check-interval:5s}") Duration checkInterval) {
+        Binder binder = Binder.get(environment);
+
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        replica = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setJdbcUrl(replicaUrl);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setReadOnly(true);
+        replica.setPoolName("replica");
+
+        lagMonitor = new ReplicaLagMonitor(replica, lagQuery, maxLag, checkInterval);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicationRoutingDataSource.PRIMARY, primary);
+        targets.put(ReplicationRoutingDataSource.REPLICA, replica);
+
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(lagMonitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    ReplicaLagMonitor getLagMonitor() {
+        return lagMonitor;
+    }
+
+    @Override
+    public void destroy() {
+        if (lagMonitor != null) lagMonitor.close();
+        if (replica != null) replica.close();
+        if (primary != null) primary.close();
+    }
+}
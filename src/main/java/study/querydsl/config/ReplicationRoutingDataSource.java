@@ -0,0 +1,28 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 나머지는 primary 로 보낸다.
+ *
+ * replica 가 죽었거나 많이 뒤처졌으면(ReplicaLagMonitor) 읽기도 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 정해지지 않기 때문에 LazyConnectionDataSourceProxy 로 감싸서 써야 한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicationRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && lagMonitor.isReplicaUsable() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import study.querydsl.monitoring.QueryScope;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 검색 쿼리를 병렬로 실행할 때 쓰는 Executor (@Qualifier("memberSearchExecutor"))
+ *
+ * 쿼리 하나가 커넥션 하나를 쓰기 때문에 동시에 실행되는 쿼리 수를 커넥션 풀 크기보다 작게 제한한다.
+ * (max-concurrency 를 지정하지 않으면 hikari 풀 크기의 절반)
+ *
+ * - 가상 스레드를 지원하는 런타임(JDK 21+) : 작업마다 가상 스레드를 만들고 세마포어로 동시 실행 수를 제한한다.
+ * - 그 외 : max-concurrency 크기의 고정 스레드 풀. 큐가 차면 호출한 스레드에서 실행한다. (backpressure)
+ *
+ * 어느 쪽이든 호출한 스레드의 QueryScope 를 작업 스레드로 넘긴다. (statement 수가 호출한 메서드/요청에 잡히도록)
+ *
+ * Executor 빈이 하나라도 있으면 스프링 부트가 applicationTaskExecutor 를 만들지 않으므로 여기서 같이 등록한다.
+ * (@Async, MVC 비동기 요청용. spring.task.execution.* 설정은 그대로 적용된다)
+ */
+@Slf4j
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean
+    public AsyncListenableTaskExecutor memberSearchExecutor(@Value("${member.search.executor.max-concurrency:0}") int maxConcurrency,
+                                                            @Value("${member.search.executor.queue-capacity:100}") int queueCapacity,
+                                                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : Math.max(1, connectionPoolSize / 2);
+
+        ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            log.info("member search executor: virtual threads, max concurrency {}", concurrency);
+            // 가상 스레드는 데몬 스레드라 종료 시점에 따로 shutdown 하지 않아도 된다.
+            ConcurrentTaskExecutor executor =
+                    new ConcurrentTaskExecutor(new LimitedExecutorService(virtualThreads, new Semaphore(concurrency)));
+            executor.setTaskDecorator(QueryScope::propagate);
+            return executor;
+        }
+
+        log.info("member search executor: platform thread pool, size {}", concurrency);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(QueryScope::propagate);
+        return executor;
+    }
+
+    /**
+     * 스프링 부트 TaskExecutionAutoConfiguration 이 등록하는 것과 같은 빈
+     */
+    @Lazy
+    @Primary
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * 소스 레벨이 1.8 이라서 Executors.newVirtualThreadPerTaskExecutor() 를 리플렉션으로 찾는다.
+     */
+    private ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
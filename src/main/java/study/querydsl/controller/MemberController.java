@@ -3,30 +3,147 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.CountStrategy;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberExportService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    // spring.data.web.pageable.max-page-size 기본값과 같다.
+    private static final int MAX_PAGE_SIZE = 2000;
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberBulkLoader memberBulkLoader;
 
     @GetMapping("/v1/members")
     public Page<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
+    /**
+     * fields 를 주면 그 컬럼만 조회한다. (예: ?fields=memberId,username 이면 team 을 조인하지 않는다)
+     */
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<?> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                  @RequestParam(defaultValue = "EXACT") CountStrategy count,
+                                  @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return memberRepository.searchPageFields(condition, pageable, fields, count);
+        }
+        return memberRepository.searchPageComplex(condition, pageable, count);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<?> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                  @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return memberRepository.searchPageFields(condition, pageable, fields, CountStrategy.EXACT);
+        }
         return memberRepository.searchPageComplex_lamda(condition, pageable);
     }
+
+    /**
+     * 컨텐츠 / 카운트 쿼리를 별도 스레드에서 동시에 실행한다. 서블릿 스레드는 결과를 기다리지 않고 반납된다.
+     */
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchPageAsync(condition, pageable);
+    }
+
+    /**
+     * 무한 스크롤용. 카운트 쿼리 없이 다음 페이지가 있는지(hasNext / last)만 알려준다.
+     */
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    /**
+     * 키셋 페이징. 첫 페이지는 cursor 없이 호출하고, 이후에는 응답의 nextCursor 를 그대로 넘긴다.
+     * size 는 1 이상이어야 하고 MAX_PAGE_SIZE 를 넘으면 MAX_PAGE_SIZE 로 줄인다. 잘못된 size / cursor 는 400 이다.
+     */
+    @GetMapping("/v4/members")
+    public MemberKeysetPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "ID") MemberCursor.Order order) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 이상이어야 합니다: " + size);
+        }
+        MemberCursor memberCursor;
+        try {
+            memberCursor = cursor == null ? MemberCursor.first(order) : MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return memberRepository.searchKeyset(condition, memberCursor, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * 검색 결과를 NDJSON / CSV 로 응답 스트림에 바로 쓴다.
+     */
+    @GetMapping("/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+                              @RequestParam(defaultValue = "NDJSON") MemberExportService.Format format,
+                              @RequestParam(defaultValue = "500") int fetchSize,
+                              HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.export(condition, format, fetchSize, response.getOutputStream());
+    }
+
+    /**
+     * "username,age,teamName" CSV 를 요청 본문에서 한 줄씩 읽어서 적재한다. 첫 줄이 헤더와 같을 때만 건너뛴다.
+     * 형식이 잘못된 줄이 있으면 줄 번호와 함께 400 으로 응답한다. (적재는 전부 롤백된다)
+     */
+    @PostMapping(value = "/members/import", consumes = "text/csv")
+    public MemberBulkLoadResult importMembers(HttpServletRequest request) throws IOException {
+        try (LineNumberReader reader = new LineNumberReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            String first = reader.readLine();
+            Stream<String> lines = first == null ? Stream.empty()
+                    : MemberImportRow.isCsvHeader(first) ? reader.lines()
+                    : Stream.concat(Stream.of(first), reader.lines());
+            Iterator<MemberImportRow> rows = lines
+                    .filter(line -> !line.trim().isEmpty())
+                    .map(line -> parseCsv(line, reader.getLineNumber()))
+                    .iterator();
+            return memberBulkLoader.load(rows);
+        }
+    }
+
+    private MemberImportRow parseCsv(String line, int lineNumber) {
+        try {
+            return MemberImportRow.parseCsv(line);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, lineNumber + "번째 줄: " + e.getMessage(), e);
+        }
+    }
 }
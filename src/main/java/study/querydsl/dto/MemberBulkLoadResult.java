@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberBulkLoadResult {
+    private final long rows;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+
+    public MemberBulkLoadResult(long rows, long elapsedMillis) {
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+    }
+}
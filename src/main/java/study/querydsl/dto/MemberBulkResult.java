@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 벌크 연산 결과. 청크(id 범위)별로 영향받은 row 수를 담는다.
+ */
+@Getter
+@ToString
+public class MemberBulkResult {
+    private final List<Long> rowsPerChunk;
+    private final long totalRows;
+
+    public MemberBulkResult(List<Long> rowsPerChunk) {
+        this.rowsPerChunk = rowsPerChunk;
+        this.totalRows = rowsPerChunk.stream().mapToLong(Long::longValue).sum();
+    }
+}
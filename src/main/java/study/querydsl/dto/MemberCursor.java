@@ -0,0 +1,66 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ *
+ * 마지막으로 읽은 row 의 정렬 키를 들고 다니면서 offset 대신 where id > :lastId 로 다음 페이지를 찾는다.
+ * 클라이언트에게는 encode() 로 만든 불투명(opaque) 토큰만 노출한다.
+ */
+@Getter
+@ToString
+public class MemberCursor {
+
+    public enum Order {
+        ID,     // order by member.id
+        AGE_ID  // order by member.age, member.id
+    }
+
+    private final Order order;
+    private final Long lastId;
+    private final Integer lastAge;
+
+    private MemberCursor(Order order, Long lastId, Integer lastAge) {
+        this.order = order;
+        this.lastId = lastId;
+        this.lastAge = lastAge;
+    }
+
+    public static MemberCursor first(Order order) {
+        return new MemberCursor(order == null ? Order.ID : order, null, null);
+    }
+
+    public static MemberCursor after(Order order, MemberTeamDto last) {
+        return new MemberCursor(order, last.getMemberId(), order == Order.AGE_ID ? last.getAge() : null);
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String encode() {
+        String raw = order == Order.AGE_ID
+                ? order.name() + ":" + lastAge + ":" + lastId
+                : order.name() + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            Order order = Order.valueOf(parts[0]);
+            if (order == Order.AGE_ID) {
+                return new MemberCursor(order, Long.valueOf(parts[2]), Integer.valueOf(parts[1]));
+            }
+            return new MemberCursor(order, Long.valueOf(parts[1]), null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberImportRow {
+    private final String username;
+    private final int age;
+    private final String teamName;
+
+    public static final String CSV_HEADER = "username,age,teamName";
+
+    /**
+     * 첫 줄이 헤더인지. (데이터 줄의 회원명이 "username" 으로 시작할 수도 있으므로 줄 전체를 비교한다)
+     */
+    public static boolean isCsvHeader(String line) {
+        return CSV_HEADER.equalsIgnoreCase(line.replace(" ", ""));
+    }
+
+    /**
+     * "username,age,teamName" 형식의 한 줄. 팀명은 비어 있을 수 있다.
+     * 컬럼 수, 회원명, 나이가 잘못되면 IllegalArgumentException 을 던진다.
+     */
+    public static MemberImportRow parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 2 || fields.length > 3) {
+            throw new IllegalArgumentException("컬럼은 username,age[,teamName] 이어야 합니다: " + line);
+        }
+        String username = fields[0].trim();
+        if (username.isEmpty()) {
+            throw new IllegalArgumentException("회원명이 비어 있습니다: " + line);
+        }
+        int age;
+        try {
+            age = Integer.parseInt(fields[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("나이가 숫자가 아닙니다: " + line);
+        }
+        if (age < 0) {
+            throw new IllegalArgumentException("나이는 0 이상이어야 합니다: " + line);
+        }
+        String teamName = fields.length > 2 && !fields[2].trim().isEmpty() ? fields[2].trim() : null;
+        return new MemberImportRow(username, age, teamName);
+    }
+}
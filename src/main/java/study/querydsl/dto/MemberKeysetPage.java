@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 키셋 페이징 결과
+ *
+ * 전체 카운트는 구하지 않는다. 다음 페이지가 있으면 nextCursor 에 토큰을 담아준다.
+ */
+@Getter
+public class MemberKeysetPage {
+    private final List<MemberTeamDto> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public MemberKeysetPage(List<MemberTeamDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+}
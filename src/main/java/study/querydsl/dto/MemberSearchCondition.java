@@ -1,5 +1,10 @@
 package study.querydsl.dto;
 import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
 @Data
 public class MemberSearchCondition {
     //회원명, 팀명, 나이(ageGoe, ageLoe)
@@ -7,4 +12,63 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    //확장 조건: 회원명 목록(in), 회원명 접두사(like 'x%'), 팀명 목록(in), OR 그룹
+    private List<String> usernames;
+    private String usernamePrefix;
+    private List<String> teamNames;
+    private List<MemberSearchCondition> anyOf;
+
+    /**
+     * 기본 조건 4가지(회원명, 팀명, 나이 이상/이하) 외의 조건이 있는지
+     */
+    public boolean hasExtendedFilters() {
+        return !isEmpty(usernames) || normalize(usernamePrefix) != null || !isEmpty(teamNames) || !isEmpty(anyOf);
+    }
+
+    /**
+     * 캐시 키로 쓰기 위한 정규화된 복사본. (앞뒤 공백 제거, 빈 문자열은 null, 목록은 중복 제거 후 정렬)
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(normalize(username));
+        copy.setTeamName(normalize(teamName));
+        copy.setAgeGoe(ageGoe);
+        copy.setAgeLoe(ageLoe);
+        copy.setUsernames(normalize(usernames));
+        copy.setUsernamePrefix(normalize(usernamePrefix));
+        copy.setTeamNames(normalize(teamNames));
+        if (!isEmpty(anyOf)) {
+            List<MemberSearchCondition> groups = new ArrayList<>();
+            anyOf.forEach(group -> groups.add(group.normalized()));
+            copy.setAnyOf(groups);
+        }
+        return copy;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static List<String> normalize(List<String> values) {
+        if (isEmpty(values)) {
+            return null;
+        }
+        TreeSet<String> set = new TreeSet<>();
+        values.forEach(value -> {
+            String normalized = normalize(value);
+            if (normalized != null) {
+                set.add(normalized);
+            }
+        });
+        return set.isEmpty() ? null : new ArrayList<>(set);
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
 }
@@ -0,0 +1,42 @@
+package study.querydsl.entity;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 벌크 연산 감지
+ *
+ * queryFactory.update(member)...execute() 같은 벌크 연산은 영속성 컨텍스트를 거치지 않아서 엔티티 리스너가 불리지 않는다.
+ * 하이버네이트가 실행하는 SQL 을 보고 member / team 테이블을 update / delete 하면 MemberDataChangedEvent 를 발행한다.
+ */
+@Component
+public class BulkChangeStatementInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final Pattern DML = Pattern.compile(
+            "^\\s*(?:update|delete\\s+from)\\s+(member|team)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final MemberDataChangeListener changeListener;
+
+    public BulkChangeStatementInspector(MemberDataChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = DML.matcher(sql);
+        if (matcher.find()) {
+            changeListener.changed("team".equalsIgnoreCase(matcher.group(1)) ? Team.class : Member.class, true);
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", this);
+    }
+}
@@ -8,13 +8,22 @@ import lombok.ToString;
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(MemberDataChangeListener.class)
+@NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team"))
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age, member_id"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age, member_id") // 팀 + 나이 조건, 조인 키까지 인덱스에서 해결
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
+    // allocationSize 만큼 id 를 미리 받아두고(pooled) 메모리에서 나눠준다. insert 마다 시퀀스를 조회하지 않는다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -0,0 +1,93 @@
+package study.querydsl.entity;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Member / Team 엔티티 리스너
+ *
+ * 스프링 부트는 하이버네이트에 SpringBeanContainer 를 등록하기 때문에 엔티티 리스너도 스프링 빈으로 주입받을 수 있다.
+ * 변경 즉시 한번, 트랜잭션이 끝난 후(커밋/롤백) 한번 더 이벤트를 발행한다.
+ * 변경 중인 트랜잭션 안에서 다시 캐시에 올라간 값도 트랜잭션이 끝나면 버려지게 하기 위해서다.
+ * 대량 적재는 batch() 로 감싸서 건마다가 아니라 엔티티 타입별로 한번만 발행한다.
+ */
+@Component
+public class MemberDataChangeListener {
+
+    private static final ThreadLocal<Set<Class<?>>> BATCH = new ThreadLocal<>();
+
+    private final ApplicationEventPublisher publisher;
+
+    public MemberDataChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Set<Class<?>> batch = BATCH.get();
+        if (batch != null) {
+            batch.add(entity.getClass());
+            return;
+        }
+        changed(entity.getClass());
+    }
+
+    /**
+     * work 안의 엔티티 변경은 건마다 이벤트를 발행하지 않고, 끝난 후 바뀐 엔티티 타입별로 한번씩 발행한다.
+     * 읽기 모델 동기화(MemberTeamViewSyncListener)도 건마다 하지 않으므로 호출한 쪽이 MemberTeamViewWriter 로 반영해야 한다.
+     */
+    public <T> T batch(Supplier<T> work) {
+        if (BATCH.get() != null) {
+            return work.get();
+        }
+        Set<Class<?>> changedTypes = new LinkedHashSet<>();
+        BATCH.set(changedTypes);
+        try {
+            return work.get();
+        } finally {
+            BATCH.remove();
+            changedTypes.forEach(this::changed);
+        }
+    }
+
+    static boolean isBatching() {
+        return BATCH.get() != null;
+    }
+
+    public void changed(Class<?> entityType) {
+        changed(entityType, false);
+    }
+
+    /**
+     * @param bulk 벌크 SQL 로 바뀌었는지 (BulkChangeStatementInspector). 트랜잭션이 끝난 후의 이벤트는 항상 false 다.
+     */
+    public void changed(Class<?> entityType, boolean bulk) {
+        publisher.publishEvent(new MemberDataChangedEvent(entityType, bulk));
+
+        // 트랜잭션당, 엔티티 타입당 한번만 등록한다.
+        String key = MemberDataChangeListener.class.getName() + "." + entityType.getName();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(key)) {
+            MemberDataChangedEvent event = new MemberDataChangedEvent(entityType);
+            TransactionSynchronizationManager.bindResource(key, event);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(key);
+                    publisher.publishEvent(event);
+                }
+            });
+        }
+    }
+}
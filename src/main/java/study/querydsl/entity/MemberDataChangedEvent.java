@@ -0,0 +1,26 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Member / Team 이 변경되었음을 알리는 이벤트
+ *
+ * 검색 결과를 캐시하는 컴포넌트들은 이 이벤트를 받으면 캐시를 비운다.
+ * bulk 는 영속성 컨텍스트를 거치지 않은 벌크 SQL 을 실행한 시점의 이벤트인지다. (읽기 모델은 이때만 따로 반영해야 한다)
+ */
+@Getter
+@ToString
+public class MemberDataChangedEvent {
+    private final Class<?> entityType;
+    private final boolean bulk;
+
+    public MemberDataChangedEvent(Class<?> entityType) {
+        this(entityType, false);
+    }
+
+    public MemberDataChangedEvent(Class<?> entityType, boolean bulk) {
+        this.entityType = entityType;
+        this.bulk = bulk;
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * MemberTeamDto 조회 전용 테이블 (member + team 을 미리 조인해둔 읽기 모델)
+ *
+ * JPA 로 쓰지 않는다. Member / Team 이 바뀔 때 MemberTeamViewSyncListener 가, 벌크 연산 후에는
+ * MemberTeamViewWriter 가 SQL 로 갱신한다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "member_team_view", indexes = {
+        // MemberSort 가 허용하는 정렬을 member 와 같이 인덱스로 처리할 수 있게 member 의 인덱스와 같은 모양으로 둔다.
+        @Index(name = "idx_member_team_view_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_team_view_age", columnList = "age, member_id"),
+        @Index(name = "idx_member_team_view_team_id_age", columnList = "team_id, age, member_id"),
+        @Index(name = "idx_member_team_view_team_age", columnList = "team_name, age, member_id") // 팀명 조건 (조인 없이)
+})
+public class MemberTeamView {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+}
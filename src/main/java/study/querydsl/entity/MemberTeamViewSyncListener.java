@@ -0,0 +1,116 @@
+package study.querydsl.entity;
+
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+
+/**
+ * member_team_view 동기화 (하이버네이트 이벤트 리스너, HibernateEventConfig 에서 등록)
+ *
+ * flush 중 엔티티 insert / update / delete 직후에 같은 커넥션으로 읽기 모델을 갱신한다.
+ * JDBC 배치 때문에 member row 가 아직 DB 에 없을 수 있어서, member 값은 엔티티에서 바로 꺼내 쓴다.
+ * 팀명은 팀 엔티티가 로딩돼 있으면 엔티티에서, 프록시면 (이미 DB 에 있는 팀이므로) 서브쿼리로 구한다.
+ */
+public class MemberTeamViewSyncListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String MERGE_MEMBER =
+            "merge into member_team_view (member_id, username, age, team_id, team_name) key (member_id)"
+                    + " values (?, ?, ?, ?, ?)";
+    private static final String MERGE_MEMBER_TEAM_NAME_FROM_DB =
+            "merge into member_team_view (member_id, username, age, team_id, team_name) key (member_id)"
+                    + " values (?, ?, ?, ?, (select t.name from team t where t.id = ?))";
+    private static final String DELETE_MEMBER = "delete from member_team_view where member_id = ?";
+    private static final String UPDATE_TEAM = "update member_team_view set team_name = ? where team_id = ?";
+    private static final String DETACH_TEAM = "update member_team_view set team_id = null, team_name = null where team_id = ?";
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // 대량 적재는 끝난 후 범위로 반영한다. (MemberBulkLoader)
+        if (event.getEntity() instanceof Member && !MemberDataChangeListener.isBatching()) {
+            mergeMember(event.getSession(), (Member) event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            mergeMember(event.getSession(), (Member) event.getEntity());
+        } else if (event.getEntity() instanceof Team) {
+            Team team = (Team) event.getEntity();
+            event.getSession().doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(UPDATE_TEAM)) {
+                    ps.setString(1, team.getName());
+                    ps.setLong(2, team.getId());
+                    ps.executeUpdate();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member || event.getEntity() instanceof Team) {
+            String sql = event.getEntity() instanceof Member ? DELETE_MEMBER : DETACH_TEAM;
+            Long id = (Long) event.getId();
+            event.getSession().doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setLong(1, id);
+                    ps.executeUpdate();
+                }
+            });
+        }
+    }
+
+    private void mergeMember(EventSource session, Member member) {
+        Team team = member.getTeam();
+        boolean teamLoaded = team == null || Hibernate.isInitialized(team);
+        Long teamId = teamId(team);
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(teamLoaded ? MERGE_MEMBER : MERGE_MEMBER_TEAM_NAME_FROM_DB)) {
+                ps.setLong(1, member.getId());
+                ps.setString(2, member.getUsername());
+                ps.setInt(3, member.getAge());
+                if (team == null) {
+                    ps.setNull(4, Types.BIGINT);
+                    ps.setNull(5, Types.VARCHAR);
+                } else {
+                    ps.setLong(4, teamId);
+                    if (teamLoaded) {
+                        ps.setString(5, team.getName());
+                    } else {
+                        ps.setLong(5, teamId);
+                    }
+                }
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 프록시를 초기화하지 않고 팀 id 를 꺼낸다. (flush 중에 엔티티를 로딩하지 않기 위해)
+     */
+    private Long teamId(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
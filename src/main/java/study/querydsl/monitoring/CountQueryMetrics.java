@@ -0,0 +1,36 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * PageableExecutionUtils.getPage() 가 카운트 쿼리를 실행했는지 생략했는지 센다. (member.repository.count)
+ */
+@Component
+public class CountQueryMetrics {
+
+    private final Counter executed;
+    private final Counter skipped;
+
+    public CountQueryMetrics(MeterRegistry registry) {
+        this.executed = registry.counter("member.repository.count", "result", "executed");
+        this.skipped = registry.counter("member.repository.count", "result", "skipped");
+    }
+
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, LongSupplier totalSupplier) {
+        boolean[] called = {false};
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            called[0] = true;
+            return totalSupplier.getAsLong();
+        });
+        (called[0] ? executed : skipped).increment();
+        return page;
+    }
+}
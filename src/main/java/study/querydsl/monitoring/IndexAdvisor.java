@@ -0,0 +1,47 @@
+package study.querydsl.monitoring;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 실행된 select 문마다 EXPLAIN 을 돌려서 테이블 풀 스캔을 찾는다. (H2)
+ *
+ * H2 의 실행 계획은 스캔이면 "PUBLIC.MEMBER.tableScan", 인덱스를 타면 "PUBLIC.IDX_MEMBER_AGE: ..." 처럼 나온다.
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndexAdvisor(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * work 에서 실행된 select 문 중 풀 스캔이 선택된 것들의 실행 계획
+     */
+    public List<String> findTableScans(Runnable work) {
+        List<String> statements;
+        try (QueryScope scope = QueryScope.capturing()) {
+            work.run();
+            statements = scope.getCapturedStatements();
+        }
+
+        List<String> scans = new ArrayList<>();
+        for (String sql : statements) {
+            if (!sql.trim().toLowerCase().startsWith("select")) {
+                continue;
+            }
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            if (plan != null && plan.contains(TABLE_SCAN)) {
+                scans.add(plan);
+            }
+        }
+        return scans;
+    }
+}
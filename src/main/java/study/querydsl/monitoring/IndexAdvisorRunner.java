@@ -0,0 +1,57 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 기동 시점 인덱스 점검 (member.index-advisor.enabled=true)
+ *
+ * 검색 조건 조합(조건 없는 검색 제외 15가지)으로 검색/카운트 쿼리를 실행해보고, 풀 스캔이 있으면 기동을 실패시킨다.
+ * 결과가 한 페이지에 다 들어오면 카운트 쿼리가 생략되므로, 항상 카운트를 실행하는 searchPageComplex(condition, pageable) 로 점검한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.index-advisor.enabled", havingValue = "true")
+public class IndexAdvisorRunner implements ApplicationRunner {
+
+    private final IndexAdvisor indexAdvisor;
+    private final MemberRepository memberRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> scans = new ArrayList<>();
+        for (MemberSearchCondition condition : conditions()) {
+            scans.addAll(indexAdvisor.findTableScans(() ->
+                    memberRepository.searchPageComplex(condition, PageRequest.of(0, 20))));
+        }
+        if (!scans.isEmpty()) {
+            scans.forEach(plan -> log.error("table scan: {}", plan));
+            throw new IllegalStateException("검색 쿼리에 인덱스를 타지 않는 풀 스캔이 있습니다: " + scans.size() + "건");
+        }
+        log.info("index advisor: no table scans");
+    }
+
+    public static List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (int mask = 1; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((mask & 1) != 0) condition.setUsername("member1");
+            if ((mask & 2) != 0) condition.setTeamName("teamA");
+            if ((mask & 4) != 0) condition.setAgeGoe(10);
+            if ((mask & 8) != 0) condition.setAgeLoe(40);
+            conditions.add(condition);
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberKeysetPage;
+import study.querydsl.repository.MemberRepositoryPointcuts;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepositoryCustom 메서드별 메트릭
+ *
+ * - member.repository.query      : 실행 시간 (percentile histogram)
+ * - member.repository.rows       : 돌려준 row 수 (List / Page / Slice / 키셋 페이지)
+ * - member.repository.statements : 메서드 한번에 실행된 JDBC statement 수 (memberSearchExecutor 에서 실행된 것 포함)
+ *
+ * CompletableFuture 를 돌려주는 메서드는 future 가 끝났을 때 기록한다.
+ */
+@Aspect
+@Component
+@Order(MemberRepositoryPointcuts.METRICS_ORDER)
+public class MemberRepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public MemberRepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("study.querydsl.repository.MemberRepositoryPointcuts.customMethods()")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        QueryScope scope = QueryScope.open();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(method, "error", start, scope);
+            throw e;
+        } finally {
+            scope.close();
+        }
+
+        if (result instanceof CompletableFuture) {
+            // 비동기 검색은 작업 스레드에서 쿼리가 끝났을 때 기록한다. (statement 는 memberSearchExecutor 가 scope 를 넘겨서 센다)
+            ((CompletableFuture<?>) result).whenComplete((value, error) -> {
+                if (error == null) {
+                    recordRows(method, value);
+                }
+                record(method, error == null ? "success" : "error", start, scope);
+            });
+        } else {
+            recordRows(method, result);
+            record(method, "success", start, scope);
+        }
+        return result;
+    }
+
+    private void record(String method, String outcome, long start, QueryScope scope) {
+        Timer.builder("member.repository.query")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("member.repository.statements")
+                .tag("method", method)
+                .register(registry)
+                .record(scope.getStatementCount());
+    }
+
+    private void recordRows(String method, Object result) {
+        long rows;
+        if (result instanceof Collection) {
+            rows = ((Collection<?>) result).size();
+        } else if (result instanceof Slice) {
+            rows = ((Slice<?>) result).getNumberOfElements();
+        } else if (result instanceof MemberKeysetPage) {
+            rows = ((MemberKeysetPage) result).getContent().size();
+        } else {
+            return; // Stream 등 아직 읽지 않은 결과는 셀 수 없다.
+        }
+        DistributionSummary.builder("member.repository.rows")
+                .tag("method", method)
+                .register(registry)
+                .record(rows);
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 실행된 JDBC statement 를 스레드별로 센다.
+ *
+ * p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다.
+ * slow-threshold 보다 오래 걸린 SQL 은 바인딩 값을 채운 SQL 로 로그를 남긴다.
+ */
+@Slf4j
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final long slowThresholdNanos;
+
+    public QueryCountListener(@Value("${member.query.slow-threshold:300ms}") Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    /**
+     * 현재 스레드에서 지금까지 실행된 statement 수. 구간의 차이를 보는 용도로 쓴다.
+     */
+    public static long count() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        COUNT.get()[0]++;
+        QueryScope.record(statementInformation);
+        if (timeElapsedNanos >= slowThresholdNanos) {
+            log.warn("slow query ({} ms): {}",
+                    TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos), statementInformation.getSqlWithValues());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 구간(요청, 테스트 등) 안에서 실행된 SQL 을 모양(바인딩 전 SQL)별로 센다.
+ *
+ * 같은 모양의 SQL 이 여러 번 실행됐으면 N+1 을 의심할 수 있다.
+ * 스레드별로 열리고, 중첩해서 열 수 있다. (바깥 구간에도 같이 기록된다)
+ * 다른 스레드에 넘기는 작업을 propagate() 로 감싸면 그 스레드에서 실행된 SQL 도 같은 구간에 기록된다.
+ *
+ * <pre>
+ * try (QueryScope scope = QueryScope.open()) {
+ *     ...
+ *     scope.getRepeatedStatements(2);
+ * }
+ * </pre>
+ */
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final QueryScope parent;
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    private final List<String> captured; // 바인딩 값을 채운 SQL (capturing() 으로 열었을 때만)
+    private final AtomicLong statementCount = new AtomicLong();
+
+    private QueryScope(QueryScope parent, boolean capture) {
+        this.parent = parent;
+        this.captured = capture ? Collections.synchronizedList(new ArrayList<>()) : null;
+    }
+
+    public static QueryScope open() {
+        return open(false);
+    }
+
+    /**
+     * 실행된 SQL 을 바인딩 값까지 채워서 모아두는 구간 (IndexAdvisor)
+     */
+    public static QueryScope capturing() {
+        return open(true);
+    }
+
+    private static QueryScope open(boolean capture) {
+        QueryScope scope = new QueryScope(CURRENT.get(), capture);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 지금 열려 있는 구간을 작업을 실행하는 스레드에서도 열어둔다. (열린 구간이 없으면 그대로 돌려준다)
+     *
+     * 작업이 끝나기 전에 호출한 쪽에서 구간을 닫아도, 작업에서 실행된 SQL 은 그 구간에 계속 기록된다.
+     */
+    public static Runnable propagate(Runnable task) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            QueryScope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void record(StatementInformation statementInformation) {
+        for (QueryScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statementCount.incrementAndGet();
+            scope.counts.merge(statementInformation.getSql(), 1, Integer::sum);
+            if (scope.captured != null) {
+                scope.captured.add(statementInformation.getSqlWithValues());
+            }
+        }
+    }
+
+    public long getStatementCount() {
+        return statementCount.get();
+    }
+
+    /**
+     * threshold 번 이상 실행된 SQL 과 실행 횟수
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        counts.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+
+    public List<String> getCapturedStatements() {
+        if (captured == null) {
+            return new ArrayList<>();
+        }
+        synchronized (captured) {
+            return new ArrayList<>(captured);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
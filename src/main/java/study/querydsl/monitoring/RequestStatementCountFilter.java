@@ -0,0 +1,58 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP 요청 하나에서 실행된 JDBC statement 수 (http.jdbc.statements, uri 태그)
+ *
+ * 같은 SQL 이 n-plus-one-threshold 번 이상 실행되면 N+1 로 보고 warn 로그와 http.jdbc.n_plus_one 카운터를 남긴다.
+ */
+@Slf4j
+@Component
+public class RequestStatementCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final int nPlusOneThreshold;
+
+    public RequestStatementCountFilter(MeterRegistry registry,
+                                       @Value("${member.query.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.registry = registry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryScope scope = QueryScope.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+                DistributionSummary.builder("http.jdbc.statements")
+                        .tag("uri", uri)
+                        .register(registry)
+                        .record(scope.getStatementCount());
+
+                Map<String, Integer> repeated = scope.getRepeatedStatements(nPlusOneThreshold);
+                if (!repeated.isEmpty()) {
+                    registry.counter("http.jdbc.n_plus_one", "uri", uri).increment();
+                    repeated.forEach((sql, count) -> log.warn("N+1 suspected on {}: {} times: {}", uri, count, sql));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository;
+
+/**
+ * 페이징 검색의 전체 카운트를 구하는 방법
+ */
+public enum CountStrategy {
+    /**
+     * 매번 카운트 쿼리를 실행한다. (필요 없을 때는 생략)
+     */
+    EXACT,
+    /**
+     * 검색 조건별로 카운트를 캐시한다. TTL 이 지나거나 Member / Team 이 변경되면 다시 센다.
+     */
+    CACHED,
+    /**
+     * DB 통계(플래너가 쓰는 추정 row 수)를 읽는다. 검색 조건이 없을 때만 쓰고, 조건이 있으면 EXACT 로 동작한다.
+     */
+    ESTIMATED,
+    /**
+     * 카운트 쿼리를 컨텐츠 쿼리와 동시에 별도 스레드에서 실행한다.
+     * 별도 커넥션을 쓰기 때문에 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 데이터는 세지 않는다.
+     */
+    ASYNC
+}
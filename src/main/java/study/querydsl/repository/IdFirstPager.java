@@ -0,0 +1,59 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 컬렉션 페치 조인 페이징 (id 먼저, 엔티티는 나중에)
+ *
+ * 컬렉션(@OneToMany)을 페치 조인하면서 offset/limit 을 주면 row 수가 부모 수와 달라서 하이버네이트가 SQL 에 페이징을 넣지 못하고,
+ * 전체를 메모리에 올린 뒤 잘라낸다. (HHH000104, fail_on_pagination_over_collection_fetch 로 막아 두었다)
+ *
+ * 1. 부모 id 만 정렬/페이징해서 SQL 로 조회한다. (인덱스만으로 처리 가능)
+ * 2. 그 id 들로 in 조회하면서 컬렉션을 페치 조인한다. 메모리에 올라오는 row 는 페이지 크기만큼이다.
+ * in 조회는 순서를 보장하지 않으므로 1번의 순서로 다시 정렬하고, 페치 조인으로 중복된 부모는 합친다.
+ */
+final class IdFirstPager {
+
+    private IdFirstPager() {
+    }
+
+    /**
+     * @param idQuery   정렬(order by)까지 지정한 id 조회 쿼리. 페이징은 여기서 붙인다.
+     * @param pageable
+     * @param fetchByIds id 목록으로 엔티티를 페치 조인해서 조회
+     * @param idOf      엔티티의 id
+     * @return 페이지 내용 (카운트는 호출한 쪽에서)
+     */
+    static <T> List<T> fetchPage(JPAQuery<Long> idQuery, Pageable pageable,
+                                 Function<List<Long>, List<T>> fetchByIds, Function<T, Long> idOf) {
+        if (pageable.isPaged()) {
+            idQuery.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+        List<Long> ids = idQuery.fetch();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, T> byId = new LinkedHashMap<>();
+        for (T entity : fetchByIds.apply(ids)) {
+            byId.putIfAbsent(idOf.apply(entity), entity);
+        }
+
+        List<T> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) { // 두 쿼리 사이에 삭제된 경우
+                content.add(entity);
+            }
+        }
+        return content;
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 처리할 수 없는 검색 요청 (?sort=, ?fields= 등). 컨트롤러까지 올라가면 400 으로 응답한다.
+ *
+ * IllegalArgumentException 을 상속하면 PersistenceExceptionTranslationInterceptor 가 500 으로 바꾼다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchRequestException extends RuntimeException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+}
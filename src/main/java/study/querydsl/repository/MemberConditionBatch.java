@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 여러 검색 조건을 쿼리 하나로 합치고, 결과를 다시 조건별로 나눈다. (MemberRepositoryImpl.searchAll)
+ *
+ * 한 회원이 여러 조건에 동시에 맞을 수 있어서 SQL 에서 조건 번호 컬럼 하나로는 나눌 수 없다.
+ * 그래서 조건들을 OR 로 합쳐서 한번 조회하고, 각 row 가 어느 조건에 맞는지는 메모리에서 다시 확인한다.
+ * 조건은 normalized() 된 것이어야 한다.
+ */
+final class MemberConditionBatch {
+
+    private MemberConditionBatch() {
+    }
+
+    /**
+     * 회원명만 다른 조건들은 회원명 목록(in) 하나로, 그 다음 팀명만 다른 조건들은 팀명 목록(in) 하나로 합친다.
+     */
+    static List<MemberSearchCondition> merge(List<MemberSearchCondition> conditions) {
+        List<MemberSearchCondition> byUsername = mergeBy(conditions,
+                MemberSearchCondition::getUsername, MemberSearchCondition::getUsernames,
+                (condition, usernames) -> {
+                    condition.setUsername(null);
+                    condition.setUsernames(usernames);
+                });
+        return mergeBy(byUsername,
+                MemberSearchCondition::getTeamName, MemberSearchCondition::getTeamNames,
+                (condition, teamNames) -> {
+                    condition.setTeamName(null);
+                    condition.setTeamNames(teamNames);
+                });
+    }
+
+    /**
+     * value 만 다르고 나머지가 같은 조건들을 value 목록 하나로 합친다. 이미 목록이 있는 조건은 그대로 둔다.
+     */
+    private static List<MemberSearchCondition> mergeBy(List<MemberSearchCondition> conditions,
+                                                       Function<MemberSearchCondition, String> value,
+                                                       Function<MemberSearchCondition, List<String>> values,
+                                                       BiConsumer<MemberSearchCondition, List<String>> setValues) {
+        Map<MemberSearchCondition, List<String>> valuesByRest = new LinkedHashMap<>();
+        List<MemberSearchCondition> merged = new ArrayList<>();
+        for (MemberSearchCondition condition : conditions) {
+            if (value.apply(condition) == null || values.apply(condition) != null) {
+                merged.add(condition);
+                continue;
+            }
+            MemberSearchCondition rest = condition.normalized();
+            setValues.accept(rest, null);
+            valuesByRest.computeIfAbsent(rest, key -> new ArrayList<>()).add(value.apply(condition));
+        }
+        valuesByRest.forEach((rest, grouped) -> {
+            MemberSearchCondition group = rest.normalized();
+            setValues.accept(group, grouped);
+            merged.add(group);
+        });
+        return merged;
+    }
+
+    /**
+     * MemberPredicateCompiler 가 만드는 조건과 같은 의미로 row 를 확인한다.
+     */
+    static boolean matches(MemberSearchCondition condition, MemberTeamDto row) {
+        if (condition.getUsername() != null && !condition.getUsername().equals(row.getUsername())) {
+            return false;
+        }
+        if (condition.getUsernames() != null && !condition.getUsernames().contains(row.getUsername())) {
+            return false;
+        }
+        if (condition.getUsernamePrefix() != null
+                && (row.getUsername() == null || !row.getUsername().startsWith(condition.getUsernamePrefix()))) {
+            return false;
+        }
+        if (condition.getTeamName() != null && !condition.getTeamName().equals(row.getTeamName())) {
+            return false;
+        }
+        if (condition.getTeamNames() != null && !condition.getTeamNames().contains(row.getTeamName())) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && row.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+        if (condition.getAgeLoe() != null && row.getAge() > condition.getAgeLoe()) {
+            return false;
+        }
+        if (condition.getAnyOf() != null && !condition.getAnyOf().isEmpty()) {
+            return condition.getAnyOf().stream().anyMatch(group -> matches(group, row));
+        }
+        return true;
+    }
+}
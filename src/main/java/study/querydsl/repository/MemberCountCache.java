@@ -0,0 +1,62 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.MemberDataChangedEvent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 검색 조건별 전체 카운트 캐시
+ *
+ * MemberSearchCondition 은 값이 바뀔 수 있는 객체라서 정규화한 복사본(normalized())을 키로 쓴다.
+ * 읽기/쓰기 트랜잭션 안에서 센 값은 아직 커밋하지 않은 row 가 포함될 수 있어서 캐시에 넣지도, 캐시에서 꺼내지도 않는다.
+ * 세는 동안 캐시가 비워졌으면 (generation 이 바뀌었으면) 그 값은 캐시에 남기지 않는다. (MemberSearchCacheAspect 와 같다)
+ */
+@Component
+public class MemberCountCache {
+
+    private final Cache<MemberSearchCondition, Long> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberCountCache(@Value("${member.search.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.search.count-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public long get(MemberSearchCondition condition, Supplier<Long> counter) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return counter.get();
+        }
+        MemberSearchCondition key = condition.normalized();
+        Long count = cache.getIfPresent(key);
+        if (count == null) {
+            // cache.get(key, loader) 를 쓰지 않는다.
+            // 카운트 쿼리 전 flush 로 엔티티 리스너가 불리면 로딩 중에 invalidateAll() 이 호출되기 때문이다.
+            long before = generation.get();
+            count = counter.get();
+            cache.put(key, count);
+            if (generation.get() != before) {
+                cache.invalidate(key);
+            }
+        }
+        return count;
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
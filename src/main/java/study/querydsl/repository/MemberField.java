@@ -0,0 +1,71 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 결과에서 골라 받을 수 있는 컬럼 (?fields=memberId,username)
+ *
+ * teamId 는 member 의 FK(team_id) 라서 team 조인이 필요 없다. teamName 을 고를 때만 team 을 조인한다.
+ */
+enum MemberField {
+    MEMBER_ID("memberId", member.id, false),
+    USERNAME("username", member.username, false),
+    AGE("age", member.age, false),
+    TEAM_ID("teamId", member.team.id, false),
+    TEAM_NAME("teamName", team.name, true);
+
+    private final String name;
+    private final Expression<?> path;
+    private final boolean needsTeamJoin;
+
+    MemberField(String name, Expression<?> path, boolean needsTeamJoin) {
+        this.name = name;
+        this.path = path;
+        this.needsTeamJoin = needsTeamJoin;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Expression<?> getPath() {
+        return path;
+    }
+
+    boolean needsTeamJoin() {
+        return needsTeamJoin;
+    }
+
+    /**
+     * 요청 순서대로, 중복은 빼고 변환한다. 비어 있으면 전체 컬럼
+     */
+    static List<MemberField> parse(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Arrays.asList(values());
+        }
+        Set<MemberField> fields = new LinkedHashSet<>();
+        for (String name : names) {
+            fields.add(of(name.trim()));
+        }
+        return new ArrayList<>(fields);
+    }
+
+    private static MemberField of(String name) {
+        for (MemberField field : values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new InvalidSearchRequestException("조회할 수 없는 컬럼입니다: " + name
+                + " (가능: memberId, username, age, teamId, teamName)");
+    }
+}
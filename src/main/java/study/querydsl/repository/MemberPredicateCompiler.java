@@ -0,0 +1,161 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.apache.logging.log4j.util.Strings.isEmpty;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * MemberSearchCondition -> Querydsl Predicate
+ *
+ * - 회원명 / 회원명 목록, 팀명 / 팀명 목록은 교집합으로 합친다. 합친 결과가 하나면 =, 여러 개면 in 이다.
+ * - 나이 이상/이하는 하나의 범위로 합친다. (같으면 =, 모순이면 항상 거짓)
+ * - 팀 조건은 TeamIdResolver 로 팀 id 로 바꿔서 team 조인 없이 member.team.id 로 필터링한다.
+ * - in 목록이 IN_CHUNK_SIZE 보다 크면 여러 개의 in 을 or 로 묶는다. JPQL 에는 임시 테이블이나 = any(array) 가 없어서,
+ *   대신 hibernate.query.in_clause_parameter_padding 으로 목록 크기가 달라도 SQL 이 같아지게 한다.
+ * - anyOf 의 각 그룹은 재귀적으로 변환해서 or 로 묶는다.
+ * - 조건은 예상 선택도(남는 row 비율)가 낮은 것부터 and 로 붙인다.
+ *
+ * 조건이 하나도 없으면 값이 없는 BooleanBuilder 를 돌려준다. (where 에 넣으면 무시된다)
+ */
+@Component
+public class MemberPredicateCompiler {
+
+    static final int IN_CHUNK_SIZE = 1000;
+
+    // 데이터 분포를 모르기 때문에 쓰는 대략적인 선택도
+    private static final double USERNAME_EQ = 0.001;
+    private static final double USERNAME_PREFIX = 0.05;
+    private static final double TEAM_EQ = 0.1;
+    private static final double AGE_RANGE_PER_YEAR = 0.01;
+    private static final double OR_GROUP = 0.5;
+
+    private final TeamIdResolver teamIdResolver;
+
+    public MemberPredicateCompiler(TeamIdResolver teamIdResolver) {
+        this.teamIdResolver = teamIdResolver;
+    }
+
+    public Predicate compile(MemberSearchCondition condition) {
+        List<Term> terms = new ArrayList<>();
+
+        Set<String> usernames = intersect(condition.getUsername(), condition.getUsernames());
+        if (usernames != null) {
+            if (usernames.isEmpty()) return never();
+            terms.add(new Term(in(usernames, member.username::eq, member.username::in), USERNAME_EQ * usernames.size()));
+        }
+
+        if (!isEmpty(condition.getUsernamePrefix())) {
+            terms.add(new Term(member.username.startsWith(condition.getUsernamePrefix().trim()), USERNAME_PREFIX));
+        }
+
+        Set<String> teamNames = intersect(condition.getTeamName(), condition.getTeamNames());
+        if (teamNames != null) {
+            Set<Long> teamIds = new TreeSet<>();
+            teamNames.forEach(name -> teamIds.addAll(teamIdResolver.resolve(name)));
+            if (teamIds.isEmpty()) return never();
+            terms.add(new Term(in(teamIds, member.team.id::eq, member.team.id::in), TEAM_EQ * teamNames.size()));
+        }
+
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null && ageLoe != null) {
+            if (ageGoe > ageLoe) return never();
+            BooleanExpression age = ageGoe.equals(ageLoe) ? member.age.eq(ageGoe) : member.age.between(ageGoe, ageLoe);
+            terms.add(new Term(age, AGE_RANGE_PER_YEAR * (ageLoe - ageGoe + 1)));
+        } else if (ageGoe != null) {
+            terms.add(new Term(member.age.goe(ageGoe), AGE_RANGE_PER_YEAR * Math.max(1, 100 - ageGoe)));
+        } else if (ageLoe != null) {
+            terms.add(new Term(member.age.loe(ageLoe), AGE_RANGE_PER_YEAR * Math.max(1, ageLoe + 1)));
+        }
+
+        if (condition.getAnyOf() != null && !condition.getAnyOf().isEmpty()) {
+            BooleanBuilder or = new BooleanBuilder();
+            for (MemberSearchCondition group : condition.getAnyOf()) {
+                Predicate predicate = compile(group);
+                if (!(predicate instanceof BooleanBuilder) || ((BooleanBuilder) predicate).hasValue()) {
+                    or.or(predicate);
+                } else {
+                    or = null; // 조건 없는 그룹이 있으면 OR 전체가 항상 참
+                    break;
+                }
+            }
+            if (or != null) {
+                terms.add(new Term(or, OR_GROUP));
+            }
+        }
+
+        terms.sort(Comparator.comparingDouble(term -> term.selectivity));
+        BooleanBuilder builder = new BooleanBuilder();
+        terms.forEach(term -> builder.and(term.predicate));
+        return builder;
+    }
+
+    /**
+     * 항상 거짓인 조건 (PK 는 null 이 아니다)
+     */
+    private Predicate never() {
+        return new BooleanBuilder(member.id.isNull());
+    }
+
+    /**
+     * 단일 값과 목록의 교집합. 둘 다 없으면 null (조건 없음)
+     */
+    private Set<String> intersect(String value, List<String> values) {
+        Set<String> result = null;
+        if (!isEmpty(value)) {
+            result = new LinkedHashSet<>();
+            result.add(value.trim());
+        }
+        if (values != null && !values.isEmpty()) {
+            Set<String> set = new TreeSet<>();
+            values.stream().filter(v -> !isEmpty(v)).forEach(v -> set.add(v.trim()));
+            if (result == null) {
+                result = set;
+            } else {
+                result.retainAll(set);
+            }
+        }
+        return result;
+    }
+
+    private <T> Predicate in(Collection<T> values,
+                             Function<T, BooleanExpression> eq,
+                             Function<Collection<T>, BooleanExpression> in) {
+        if (values.size() == 1) {
+            return eq.apply(values.iterator().next());
+        }
+        List<T> list = new ArrayList<>(values);
+        if (list.size() <= IN_CHUNK_SIZE) {
+            return in.apply(list);
+        }
+        BooleanBuilder or = new BooleanBuilder();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            or.or(in.apply(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size()))));
+        }
+        return or;
+    }
+
+    private static class Term {
+        private final Predicate predicate;
+        private final double selectivity;
+
+        Term(Predicate predicate, double selectivity) {
+            this.predicate = predicate;
+            this.selectivity = selectivity;
+        }
+    }
+}
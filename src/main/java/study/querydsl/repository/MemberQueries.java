@@ -0,0 +1,48 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.NumberExpression;
+import study.querydsl.dto.QMemberTeamDto;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 쿼리에서 매번 똑같이 만드는 식(프로젝션, 별칭, 집계, 정렬)을 한번만 만들어 둔다.
+ *
+ * Querydsl 의 Expression 은 불변이라 여러 스레드가 같이 써도 된다.
+ * 요청마다 new QMemberTeamDto(member.id.as("memberId"), ...) 를 만들면 식 객체 10여 개가 매번 새로 생긴다.
+ * (Q타입 경로 자체는 QMember.member 처럼 이미 static 이다)
+ */
+public final class MemberQueries {
+
+    /**
+     * member left join team -> MemberTeamDto
+     */
+    public static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    /**
+     * member_team_view -> MemberTeamDto
+     */
+    public static final QMemberTeamDto MEMBER_TEAM_VIEW_DTO = new QMemberTeamDto(
+            memberTeamView.memberId,
+            memberTeamView.username,
+            memberTeamView.age,
+            memberTeamView.teamId,
+            memberTeamView.teamName);
+
+    public static final NumberExpression<Long> MEMBER_COUNT = member.id.count();
+    public static final NumberExpression<Long> MEMBER_VIEW_COUNT = memberTeamView.memberId.count();
+
+    public static final OrderSpecifier<Long> MEMBER_ID_ASC = member.id.asc();
+    public static final OrderSpecifier<Integer> MEMBER_AGE_ASC = member.age.asc();
+
+    private MemberQueries() {
+    }
+}
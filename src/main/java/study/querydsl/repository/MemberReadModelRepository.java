@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.logging.log4j.util.Strings.isEmpty;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+import static study.querydsl.repository.MemberQueries.MEMBER_TEAM_VIEW_DTO;
+import static study.querydsl.repository.MemberQueries.MEMBER_VIEW_COUNT;
+
+/**
+ * member_team_view 단일 테이블 조회
+ *
+ * member.search.read-model.enabled=true 이면 MemberRepositoryImpl 의 컨텐츠/카운트 쿼리가 조인 대신 이 테이블을 쓴다.
+ * false 면 (기본값) 원래대로 member + team 조인 쿼리를 쓴다.
+ *
+ * 켜져 있어도 테이블이 원본과 맞지 않을 수 있는 동안에는 조인 쿼리를 쓴다. (isReadable)
+ * - 기동 후 MemberTeamViewWriter 가 전체를 다시 만들기 전
+ * - 읽기 모델에 반영되지 않는 벌크 SQL 을 실행한 트랜잭션이 끝나고 다시 만들기 전
+ */
+@Repository
+public class MemberReadModelRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final boolean enabled;
+    private final AtomicInteger pendingRebuilds = new AtomicInteger();
+    private volatile boolean backfilled;
+
+    public MemberReadModelRepository(JPAQueryFactory queryFactory,
+                                     @Value("${member.search.read-model.enabled:false}") boolean enabled) {
+        this.queryFactory = queryFactory;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 검색을 이 테이블에서 해도 되는지
+     */
+    public boolean isReadable() {
+        return enabled && backfilled && pendingRebuilds.get() == 0;
+    }
+
+    void markBackfilled() {
+        backfilled = true;
+    }
+
+    void markStale() {
+        pendingRebuilds.incrementAndGet();
+    }
+
+    void markRebuilt() {
+        pendingRebuilds.decrementAndGet();
+    }
+
+    public List<MemberTeamDto> content(MemberSearchCondition condition, Pageable pageable) {
+        return content(condition, pageable, MemberSort.of(pageable.getSort()), 0);
+    }
+
+    /**
+     * @param extraRows 페이지 크기보다 더 가져올 row 수 (다음 페이지 존재 여부 확인용)
+     */
+    List<MemberTeamDto> content(MemberSearchCondition condition, Pageable pageable, MemberSort sort, int extraRows) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(MEMBER_TEAM_VIEW_DTO)
+                .from(memberTeamView)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(sort.toViewOrderSpecifiers());
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize() + extraRows);
+        }
+        return query.fetch();
+    }
+
+    public JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(MEMBER_VIEW_COUNT)
+                .from(memberTeamView)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return isEmpty(username) ? null : memberTeamView.username.eq(username);
+    }
+    private BooleanExpression teamNameEq(String teamName) {
+        return isEmpty(teamName) ? null : memberTeamView.teamName.eq(teamName);
+    }
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe == null ? null : memberTeamView.age.goe(ageGoe);
+    }
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe == null ? null : memberTeamView.age.loe(ageLoe);
+    }
+}
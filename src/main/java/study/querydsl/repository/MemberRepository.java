@@ -1,5 +1,6 @@
 package study.querydsl.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.querydsl.entity.Member;
 
@@ -7,5 +8,10 @@ import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
+    // 엔티티로 조회할 때 member -> team 을 한번에 가져온다. (N+1 방지)
+    @Override
+    @EntityGraph("Member.team")
+    List<Member> findAll();
+
     List<Member> findByUsername(String member1);
 }
@@ -2,17 +2,42 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions);
+
+    Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize);
+
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy);
+
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Pageable pageable, List<String> fields, CountStrategy countStrategy);
+
     Page<MemberTeamDto> searchPageComplex_lamda(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    CompletableFuture<Page<MemberTeamDto>> searchPageAsync(MemberSearchCondition condition, Pageable pageable);
+
+    MemberKeysetPage searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size);
+
+    MemberBulkResult bulkAgePlus(MemberSearchCondition condition, int amount);
+
+    MemberBulkResult bulkDeleteByCondition(MemberSearchCondition condition);
 }
@@ -1,51 +1,182 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.monitoring.CountQueryMetrics;
 
 import static org.apache.logging.log4j.util.Strings.isEmpty;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberQueries.*;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * 조회 메서드는 모두 @Transactional(readOnly = true) 다.
+ *
+ * 읽기 전용 트랜잭션을 새로 시작하면 스프링(HibernateJpaDialect)이 세션을 읽기 전용(setDefaultReadOnly)으로,
+ * 플러시 모드를 MANUAL 로 바꾼다. 조회한 엔티티의 스냅샷을 만들지 않고, 쿼리 전/커밋 시 flush 와 변경 감지도 하지 않는다.
+ * 검색 쿼리에는 org.hibernate.readOnly 힌트도 준다.
+ * 이미 진행 중인 읽기/쓰기 트랜잭션에 참여할 때는 호출한 쪽 설정을 그대로 따른다. (쓰고 바로 읽는 경우를 위해 auto flush 유지)
+ *
+ * 검색 조건은 public 메서드에 들어올 때 한번 정규화(MemberSearchCondition.normalized())해서
+ * 템플릿 JPQL, 읽기 모델, Predicate, 카운트가 모두 같은 (공백을 제거한) 값을 쓰게 한다.
+ */
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private static final int SEARCH_ALL_CHUNK_SIZE = 100;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final TeamIdResolver teamIdResolver;
+    private final MemberPredicateCompiler predicateCompiler;
+    private final CountQueryMetrics countQueryMetrics;
+    private final MemberReadModelRepository readModel;
+    private final MemberTeamViewWriter readModelWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Executor searchExecutor;
+    private final int bulkChunkSize;
+    private final Duration asyncCountTimeout;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, MemberCountCache countCache,
+                                TeamIdResolver teamIdResolver, MemberPredicateCompiler predicateCompiler,
+                                CountQueryMetrics countQueryMetrics, MemberReadModelRepository readModel,
+                                MemberTeamViewWriter readModelWriter, PlatformTransactionManager transactionManager,
+                                @Qualifier("memberSearchExecutor") Executor searchExecutor,
+                                @Value("${member.bulk.chunk-size:1000}") int bulkChunkSize,
+                                @Value("${member.search.async-count-timeout:1s}") Duration asyncCountTimeout) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.countCache = countCache;
+        this.teamIdResolver = teamIdResolver;
+        this.predicateCompiler = predicateCompiler;
+        this.countQueryMetrics = countQueryMetrics;
+        this.readModel = readModel;
+        this.readModelWriter = readModelWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.searchExecutor = searchExecutor;
+        this.bulkChunkSize = bulkChunkSize;
+        this.asyncCountTimeout = asyncCountTimeout;
     }
 
     @Override
     //회원명, 팀명, 나이(ageGoe, ageLoe)
     // "레포지토리"에서 DTO 로 반환한다.
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+        return templateQuery(condition.normalized(), Pageable.unpaged());
+    }
+
+    /**
+     * 여러 검색 조건을 한번에 조회한다. 결과는 conditions 와 같은 순서의 조건별 목록이다.
+     *
+     * search() 를 조건 수만큼 호출하는 대신 조건들을 OR 로 합쳐서 (회원명만 다른 조건은 in 하나로) 쿼리 한번으로 가져오고,
+     * row 를 조건별로 다시 나눈다. (MemberConditionBatch)
+     * where 절이 너무 길어지지 않게 SEARCH_ALL_CHUNK_SIZE 개씩 나눠서 조회한다.
+     *
+     * @param conditions
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions) {
+        List<MemberSearchCondition> normalized = new ArrayList<>(conditions.size());
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        for (MemberSearchCondition condition : conditions) {
+            normalized.add(condition.normalized());
+            results.add(new ArrayList<>());
+        }
+
+        for (int from = 0; from < normalized.size(); from += SEARCH_ALL_CHUNK_SIZE) {
+            int to = Math.min(from + SEARCH_ALL_CHUNK_SIZE, normalized.size());
+            MemberSearchCondition merged = new MemberSearchCondition();
+            merged.setAnyOf(MemberConditionBatch.merge(normalized.subList(from, to)));
+
+            for (MemberTeamDto row : dynamicQuery(merged, Pageable.unpaged(), MemberSort.UNSORTED, 0)) {
+                for (int i = from; i < to; i++) {
+                    if (MemberConditionBatch.matches(normalized.get(i), row)) {
+                        results.get(i).add(row);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * search() 의 스트리밍 버전
+     *
+     * fetch() 는 결과 전체를 List 로 메모리에 올리지만, iterate() 는 하이버네이트의 ScrollableResults(JDBC 커서)로
+     * fetchSize 만큼씩 DB 에서 가져온다.
+     * 커서가 열려 있는 동안 커넥션을 쓰기 때문에 트랜잭션 안에서 호출하고, 다 쓰면 반드시 close() 해야 한다.
+     * 트랜잭션 없이 호출하면 메서드가 끝나면서 커서가 닫히므로 바로 예외를 던진다. (MANDATORY, 스프링 데이터의 Stream 메서드와 같다)
+     *
+     * @param condition
+     * @param fetchSize
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        CloseableIterator<MemberTeamDto> iterator = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+                .where(predicateCompiler.compile(condition.normalized()))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate();
+
+        Spliterator<MemberTeamDto> spliterator =
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
     }
 
     /**
@@ -60,20 +191,14 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      * @return
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+                .where(predicateCompiler.compile(condition.normalized()))
+                .orderBy(MemberSort.of(pageable.getSort()).toOrderSpecifiers())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
@@ -98,36 +223,225 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      */
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+        MemberSearchCondition normalized = condition.normalized();
+        List<MemberTeamDto> content = contentQuery(normalized, pageable);
+
+        long total = countQuery(normalized).fetchOne();
+
+        return new PageImpl<>(content, pageable, total);
+
+    }
+
+    /**
+     * 카운트 방법을 호출할 때 고르는 방법
+     *
+     * EXACT     : searchPageComplex_lamda 와 같다. 필요 없으면 카운트 쿼리를 생략한다.
+     * CACHED    : 검색 조건별로 카운트를 캐시한다. (MemberCountCache)
+     * ESTIMATED : 조건이 없으면 DB 통계의 추정 row 수를 쓴다.
+     * ASYNC     : 카운트 쿼리를 다른 스레드에서 컨텐츠 쿼리와 동시에 실행한다.
+     *             asyncCountTimeout 안에 끝나지 않으면 (커넥션 풀이 꽉 차서 두 번째 커넥션을 못 얻는 경우 등)
+     *             비동기 카운트를 취소하고 지금 트랜잭션의 커넥션으로 직접 센다.
+     *
+     * @param condition
+     * @param pageable
+     * @param countStrategy
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy) {
+        MemberSearchCondition normalized = condition.normalized();
+        return page(normalized, pageable, countStrategy, () -> contentQuery(normalized, pageable));
+    }
+
+    /**
+     * 필요한 컬럼만 조회하는 페이징 (?fields=)
+     *
+     * MemberTeamDto 의 5개 컬럼 대신 고른 컬럼만 Tuple 로 조회해서 "컬럼명 -> 값" Map 으로 돌려준다.
+     * teamName 을 고르지 않으면 team 을 조인하지 않는다. (팀명 조건은 member.team.id 로 바뀌고, teamId 는 member 의 FK 다)
+     * 카운트는 searchPageComplex 와 같이 countStrategy 를 따른다.
+     *
+     * @param condition
+     * @param pageable
+     * @param fields        memberId, username, age, teamId, teamName 중 조회할 컬럼 (비어 있으면 전체)
+     * @param countStrategy
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Pageable pageable,
+                                                      List<String> fields, CountStrategy countStrategy) {
+        List<MemberField> selected = MemberField.parse(fields);
+        MemberSort sort = MemberSort.of(pageable.getSort());
+        MemberSearchCondition normalized = condition.normalized();
+        return page(normalized, pageable, countStrategy, () -> fieldsQuery(normalized, pageable, selected, sort));
+    }
+
+    private <T> Page<T> page(MemberSearchCondition condition, Pageable pageable, CountStrategy countStrategy,
+                             Supplier<List<T>> contentQuery) {
+        if (countStrategy == CountStrategy.ASYNC) {
+            CompletableFuture<Long> total =
+                    CompletableFuture.supplyAsync(() -> readOnly(() -> countQuery(condition).fetchOne()), searchExecutor);
+            List<T> content = contentQuery.get();
+            return new PageImpl<>(content, pageable, awaitCount(total, condition));
+        }
+
+        List<T> content = contentQuery.get();
+        return countQueryMetrics.getPage(content, pageable, () -> count(condition, countStrategy));
+    }
+
+    private long awaitCount(CompletableFuture<Long> total, MemberSearchCondition condition) {
+        try {
+            return total.get(asyncCountTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 아직 시작하지 않았으면 cancel 로 실행되지 않는다.
+            total.cancel(false);
+            return countQuery(condition).fetchOne();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("카운트 대기 중 인터럽트되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<Map<String, Object>> fieldsQuery(MemberSearchCondition condition, Pageable pageable,
+                                                  List<MemberField> selected, MemberSort sort) {
+        Expression<?>[] columns = new Expression<?>[selected.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = selected.get(i).getPath();
+        }
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(columns)
+                .from(member);
+        if (selected.stream().anyMatch(MemberField::needsTeamJoin)) {
+            query.leftJoin(member.team, team);
+        }
+        query.where(predicateCompiler.compile(condition))
+                .orderBy(sort.toOrderSpecifiers())
+                .setHint(QueryHints.READ_ONLY, true);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : query.fetch()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                row.put(selected.get(i).getName(), tuple.get(i, Object.class));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<MemberTeamDto> contentQuery(MemberSearchCondition condition, Pageable pageable) {
+        return templateQuery(condition, pageable);
+    }
+
+    /**
+     * 미리 만들어 둔 JPQL 로 조회한다. (MemberSearchTemplates)
+     * 팀명 조건에 해당하는 팀이 없으면 쿼리 없이 빈 결과를 돌려준다.
+     * 읽기 모델을 켜면 조인 없이 member_team_view 에서 조회한다. (MemberReadModelRepository.isReadable)
+     * 확장 조건(회원명/팀명 목록, 접두사, OR 그룹)이 있으면 템플릿이 없으므로 MemberPredicateCompiler 로 조회한다.
+     */
+    private List<MemberTeamDto> templateQuery(MemberSearchCondition condition, Pageable pageable) {
+        return templateQuery(condition, pageable, 0);
+    }
+
+    /**
+     * @param extraRows 페이지 크기보다 더 가져올 row 수 (Slice 의 다음 페이지 확인용)
+     */
+    private List<MemberTeamDto> templateQuery(MemberSearchCondition condition, Pageable pageable, int extraRows) {
+        MemberSort sort = MemberSort.of(pageable.getSort());
+        if (condition.hasExtendedFilters()) {
+            return dynamicQuery(condition, pageable, sort, extraRows);
+        }
+        if (readModel.isReadable()) {
+            return readModel.content(condition, pageable, sort, extraRows);
+        }
+        List<Long> teamIds = isEmpty(condition.getTeamName()) ? null : teamIdResolver.resolve(condition.getTeamName());
+        if (teamIds != null && teamIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        TypedQuery<MemberTeamDto> query = MemberSearchTemplates.create(em, condition, teamIds, sort);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize() + extraRows);
+        }
+        return query.getResultList();
+    }
+
+    private List<MemberTeamDto> dynamicQuery(MemberSearchCondition condition, Pageable pageable, MemberSort sort, int extraRows) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+                .where(predicateCompiler.compile(condition))
+                .orderBy(sort.toOrderSpecifiers())
+                .setHint(QueryHints.READ_ONLY, true);
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize() + extraRows);
+        }
+        return query.fetch();
+    }
 
-        long total = queryFactory
-                .select(member)
+    /**
+     * 카운트 쿼리 빌더
+     *
+     * select(member)...fetchCount() 대신 select count(member.id) 만 조회한다.
+     * 카운트에는 team 컬럼이 필요 없고, 팀명 조건도 member.team.id 로 바뀌기 때문에 team 은 조인하지 않는다.
+     * (member -> team 은 left join 이라 조인을 빼도 row 수는 같다)
+     *
+     * @param condition
+     * @return
+     */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        if (readModel.isReadable() && !condition.hasExtendedFilters()) {
+            return readModel.countQuery(condition);
+        }
+        return queryFactory
+                .select(MEMBER_COUNT)
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetchCount();
+                .where(predicateCompiler.compile(condition));
+    }
 
-        return new PageImpl<>(content, pageable, total);
+    private long count(MemberSearchCondition condition, CountStrategy countStrategy) {
+        switch (countStrategy) {
+            case CACHED:
+                return countCache.get(condition, () -> countQuery(condition).fetchOne());
+            case ESTIMATED:
+                if (isEmptyCondition(condition)) {
+                    return estimatedMemberCount();
+                }
+                return countQuery(condition).fetchOne();
+            default:
+                return countQuery(condition).fetchOne();
+        }
+    }
 
+    private boolean isEmptyCondition(MemberSearchCondition condition) {
+        return isEmpty(condition.getUsername()) && isEmpty(condition.getTeamName())
+                && condition.getAgeGoe() == null && condition.getAgeLoe() == null
+                && !condition.hasExtendedFilters();
+    }
+
+    /**
+     * H2 가 유지하는 테이블 통계(추정 row 수)를 읽는다. 테이블을 스캔하지 않는다.
+     */
+    private long estimatedMemberCount() {
+        Number estimate = (Number) em.createNativeQuery(
+                "select row_count_estimate from information_schema.tables where table_name = 'MEMBER'")
+                .getSingleResult();
+        return estimate.longValue();
     }
 
     /**
@@ -145,47 +459,207 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      */
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex_lamda(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition normalized = condition.normalized();
+        List<MemberTeamDto> content = contentQuery(normalized, pageable);
+
+        JPAQuery<Long> countQuery = countQuery(normalized);
+
+        return countQueryMetrics.getPage(content, pageable, () -> countQuery.fetchOne());
+//        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    /**
+     * 비동기 페이징 검색
+     *
+     * 컨텐츠 쿼리와 카운트 쿼리를 memberSearchExecutor 에서 동시에 실행하고, 둘 다 끝나면 Page 를 만든다.
+     * 호출한 스레드는 기다리지 않는다. (컨트롤러에서 CompletableFuture 를 그대로 반환하면 서블릿 스레드가 반납된다)
+     * 쿼리는 작업 스레드에서 각자 읽기 전용 트랜잭션으로 실행되므로(replica 로 라우팅), 호출한 쪽 트랜잭션의 미커밋 데이터는 보이지 않는다.
+     *
+     * @param condition
+     * @param pageable
+     * @return
+     */
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageAsync(MemberSearchCondition condition, Pageable pageable) {
+        MemberSort.of(pageable.getSort()); // 잘못된 정렬은 작업 스레드로 넘기기 전에 거절한다.
+        MemberSearchCondition normalized = condition.normalized();
+        CompletableFuture<List<MemberTeamDto>> content =
+                CompletableFuture.supplyAsync(() -> readOnly(() -> contentQuery(normalized, pageable)), searchExecutor);
+        CompletableFuture<Long> total =
+                CompletableFuture.supplyAsync(() -> readOnly(() -> countQuery(normalized).fetchOne()), searchExecutor);
+
+        return content.thenCombine(total, (list, count) -> toPage(list, pageable, count));
+    }
+
+    /**
+     * 카운트 없는 페이징 (무한 스크롤)
+     *
+     * 전체 개수나 전체 페이지 수가 필요 없으면 카운트 쿼리를 아예 실행하지 않는다.
+     * 페이지 크기 + 1 개를 조회해서 하나가 더 나오면 다음 페이지가 있는 것으로 보고, 그 하나는 버린다.
+     *
+     * @param condition
+     * @param pageable
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = templateQuery(condition.normalized(), pageable, 1);
+
+        boolean hasNext = false;
+        if (pageable.isPaged() && content.size() > pageable.getPageSize()) {
+            content = new ArrayList<>(content.subList(0, pageable.getPageSize()));
+            hasNext = true;
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * 작업 스레드에는 호출한 쪽 트랜잭션이 없으므로 읽기 전용 트랜잭션을 새로 연다.
+     */
+    private <T> T readOnly(Supplier<T> query) {
+        return readOnlyTransactionTemplate.execute(status -> query.get());
+    }
+
+    private Page<MemberTeamDto> toPage(List<MemberTeamDto> content, Pageable pageable, long total) {
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 키셋(seek) 페이징
+     *
+     * offset 은 건너뛸 row 를 DB 가 전부 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+     * 마지막으로 읽은 row 의 정렬 키보다 큰 row 만 where 로 찾으면 인덱스를 타고 바로 시작 위치로 갈 수 있어서
+     * 몇 번째 페이지든 일정한 속도가 나온다.
+     * 다음 페이지 존재 여부는 size + 1 개를 조회해서 판단한다. (카운트 쿼리 없음)
+     *
+     * @param condition
+     * @param cursor
+     * @param size
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MemberKeysetPage searchKeyset(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size 는 1 이상이어야 합니다: " + size);
+        }
         List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
+                .select(MEMBER_TEAM_DTO)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .where(predicateCompiler.compile(condition.normalized()),
+                        seekAfter(cursor))
+                .orderBy(keysetOrder(cursor.getOrder()))
+                .limit(size + 1)
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+        if (content.size() <= size) {
+            return new MemberKeysetPage(content, null);
+        }
+        List<MemberTeamDto> page = new ArrayList<>(content.subList(0, size));
+        MemberCursor next = MemberCursor.after(cursor.getOrder(), page.get(size - 1));
+        return new MemberKeysetPage(page, next.encode());
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-//        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+    private BooleanExpression seekAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getOrder() == MemberCursor.Order.AGE_ID) {
+            return member.age.gt(cursor.getLastAge())
+                    .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastId())));
+        }
+        return member.id.gt(cursor.getLastId());
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
+    private OrderSpecifier<?>[] keysetOrder(MemberCursor.Order order) {
+        if (order == MemberCursor.Order.AGE_ID) {
+            return new OrderSpecifier<?>[]{MEMBER_AGE_ASC, MEMBER_ID_ASC};
+        }
+        return new OrderSpecifier<?>[]{MEMBER_ID_ASC};
     }
-    private BooleanExpression teamNameEq(String teamName) {
-        return isEmpty(teamName) ? null : team.name.eq(teamName);
+
+    /**
+     * 검색 조건에 맞는 회원의 나이를 amount 만큼 더한다. (벌크 update)
+     */
+    @Override
+    public MemberBulkResult bulkAgePlus(MemberSearchCondition condition, int amount) {
+        Predicate predicate = predicateCompiler.compile(condition.normalized());
+        return bulkByIdRange(predicate, (fromId, toId) -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(member.id.between(fromId, toId), predicate)
+                .execute());
     }
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe == null ? null : member.age.goe(ageGoe);
+
+    /**
+     * 검색 조건에 맞는 회원을 삭제한다. (벌크 delete)
+     */
+    @Override
+    public MemberBulkResult bulkDeleteByCondition(MemberSearchCondition condition) {
+        Predicate predicate = predicateCompiler.compile(condition.normalized());
+        return bulkByIdRange(predicate, (fromId, toId) -> queryFactory
+                .delete(member)
+                .where(member.id.between(fromId, toId), predicate)
+                .execute());
     }
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe == null ? null : member.age.loe(ageLoe);
+
+    /**
+     * 벌크 연산을 조건에 맞는 회원 bulkChunkSize 명씩 나눠서 실행한다.
+     *
+     * 한번에 전부 실행하면 락을 오래 잡고 undo 로그가 커진다. 호출한 쪽에 트랜잭션이 없으면 청크마다 커밋하고,
+     * 있으면 그 트랜잭션에 참여한다.
+     *
+     * 청크는 predicate 에 맞는 id 를 키셋(id > 마지막 id order by id limit bulkChunkSize)으로 구하고,
+     * 그 첫 id ~ 마지막 id 범위에 predicate 를 다시 걸어서 실행한다. (min ~ max id 를 고정 폭으로 자르면 빈 청크가 생긴다.)
+     *
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로
+     * - 실행 전에 flush() 해서 아직 DB 에 반영하지 않은 변경을 먼저 보내고
+     * - 실행 후에 clear() 와 2차 캐시 evict 로 이전 상태의 엔티티를 버린다.
+     * - 검색 결과 캐시는 BulkChangeStatementInspector 가 update/delete 문을 보고 비운다.
+     * - 읽기 모델(member_team_view)을 쓰면 청크 범위만 다시 만든다. (그래서 전체를 다시 만들지 않게 refreshing 으로 감싼다)
+     */
+    private MemberBulkResult bulkByIdRange(Predicate predicate, BiFunction<Long, Long, Long> chunk) {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction) {
+            em.flush();
+        }
+
+        List<Long> rowsPerChunk = new ArrayList<>();
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(member.id.gt(lastId), predicate)
+                    .orderBy(MEMBER_ID_ASC)
+                    .limit(bulkChunkSize)
+                    .fetch();
+            if (ids.isEmpty()) {
+                break;
+            }
+            long from = ids.get(0);
+            long to = ids.get(ids.size() - 1);
+            rowsPerChunk.add(transactionTemplate.execute(status -> readModelWriter.refreshing(() -> {
+                long rows = chunk.apply(from, to);
+                if (readModel.isEnabled()) {
+                    readModelWriter.refresh(from, to);
+                }
+                return rows;
+            })));
+            if (ids.size() < bulkChunkSize) {
+                break;
+            }
+            lastId = to;
+        }
+
+        if (inTransaction) {
+            em.clear();
+        }
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        return new MemberBulkResult(rowsPerChunk);
     }
 }
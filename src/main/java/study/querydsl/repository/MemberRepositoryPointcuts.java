@@ -0,0 +1,37 @@
+package study.querydsl.repository;
+
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+
+/**
+ * MemberRepository 에 거는 aspect 들이 같이 쓰는 pointcut 과 실행 순서
+ *
+ * 바깥부터 metrics -> 결과 캐시 -> single-flight 순서로 감싼다.
+ * 메트릭은 캐시 적중까지 포함해서 호출한 쪽이 느끼는 시간을 재고, 캐시에 없을 때만 같은 검색을 합친다.
+ */
+@Aspect
+public class MemberRepositoryPointcuts {
+
+    public static final int METRICS_ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+    public static final int CACHE_ORDER = METRICS_ORDER + 100;
+    public static final int COALESCING_ORDER = CACHE_ORDER + 100;
+
+    /**
+     * MemberRepositoryCustom 의 모든 메서드
+     */
+    @Pointcut("execution(* study.querydsl.repository.MemberRepositoryCustom.*(..))"
+            + " && this(study.querydsl.repository.MemberRepository)")
+    public void customMethods() {
+    }
+
+    /**
+     * List / Page / Slice 를 돌려주는 검색 메서드 (결과를 캐시하거나 공유할 수 있는 것)
+     */
+    @Pointcut("(execution(java.util.List study.querydsl.repository.MemberRepositoryCustom.*(..))"
+            + " || execution(org.springframework.data.domain.Page study.querydsl.repository.MemberRepositoryCustom.*(..))"
+            + " || execution(org.springframework.data.domain.Slice study.querydsl.repository.MemberRepositoryCustom.*(..)))"
+            + " && this(study.querydsl.repository.MemberRepository)")
+    public void searchMethods() {
+    }
+}
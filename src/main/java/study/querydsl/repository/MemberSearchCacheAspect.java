@@ -0,0 +1,87 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.MemberDataChangedEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberRepositoryCustom 검색 결과 캐시 (opt-in: member.search.result-cache.enabled=true)
+ *
+ * List / Page / Slice 를 돌려주는 검색 메서드만 캐시한다. 키는 메서드명 + 정규화된 검색 조건 + 나머지 인자(Pageable 등)다.
+ * Caffeine 은 최대 크기를 넘으면 W-TinyLFU 로 자주 쓰이지 않는 키부터 버린다.
+ * Member / Team 이 바뀌면 (엔티티 변경, 벌크 update/delete 모두) 전부 비운다.
+ * 읽기/쓰기 트랜잭션 안의 호출은 아직 커밋하지 않은 row 가 결과에 섞일 수 있어서 캐시를 거치지 않는다.
+ * 조회하는 동안 캐시가 비워졌으면 (generation 이 바뀌었으면) 그 결과는 바뀌기 전 데이터일 수 있으므로 캐시에 남기지 않는다.
+ *
+ * 캐시된 결과 객체는 호출한 쪽끼리 공유하므로 수정하면 안 된다.
+ */
+@Aspect
+@Component
+@Order(MemberRepositoryPointcuts.CACHE_ORDER)
+@ConditionalOnProperty(name = "member.search.result-cache.enabled", havingValue = "true")
+public class MemberSearchCacheAspect {
+
+    private final Cache<List<Object>, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberSearchCacheAspect(MeterRegistry registry,
+                                   @Value("${member.search.result-cache.ttl:1m}") Duration ttl,
+                                   @Value("${member.search.result-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "memberSearch");
+    }
+
+    @Around("study.querydsl.repository.MemberRepositoryPointcuts.searchMethods()")
+    public Object cached(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+        List<Object> key = MemberSearchKey.of(joinPoint);
+        Object result = cache.getIfPresent(key);
+        if (result == null) {
+            long before = generation.get();
+            result = joinPoint.proceed();
+            cache.put(key, result);
+            // put 전후 어느 쪽에서 비워졌든 generation 은 먼저 바뀌므로, 여기서 다시 보고 지운다.
+            if (generation.get() != before) {
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    public Cache<List<Object>, Object> getCache() {
+        return cache;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
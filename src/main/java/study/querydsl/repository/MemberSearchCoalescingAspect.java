@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.MemberDataChangedEvent;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 동시에 들어온 같은 검색을 한번만 실행한다. (single-flight, opt-in: member.search.coalescing.enabled=true)
+ *
+ * 키(MemberSearchKey)별로 실행 중인 검색을 CompletableFuture 로 ConcurrentHashMap 에 올려둔다.
+ * putIfAbsent 에 성공한 호출(leader)만 DB 를 조회하고, 그 사이에 들어온 같은 키의 호출(follower)은 그 결과를 기다려서 같이 받는다.
+ * 락은 쓰지 않는다. 실행이 끝나면 키를 지우므로 결과를 보관하지는 않는다. (보관은 MemberSearchCacheAspect)
+ *
+ * - follower 는 timeout 까지만 기다리고, 넘으면 직접 조회한다.
+ * - leader 가 예외로 끝나면 follower 도 같은 예외를 받는다.
+ * - 쓰기 트랜잭션 안의 호출은 자기 변경이 보여야 하므로 합치지 않는다.
+ * - Member / Team 이 바뀌면 실행 중인 키를 지워서, 이후 호출은 바뀐 데이터로 새로 조회한다.
+ *
+ * 결과 객체는 호출한 쪽끼리 공유하므로 수정하면 안 된다.
+ *
+ * 메트릭
+ * - member.search.coalescing (role=leader / follower / timeout) : 호출 수
+ * - member.search.coalescing.ratio : (follower - timeout) / (leader + follower). 합쳐져서 DB 를 조회하지 않은 비율
+ * - member.search.coalescing.in-flight : 실행 중인 키 수
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(MemberRepositoryPointcuts.COALESCING_ORDER)
+@ConditionalOnProperty(name = "member.search.coalescing.enabled", havingValue = "true")
+public class MemberSearchCoalescingAspect {
+
+    private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timeouts;
+
+    public MemberSearchCoalescingAspect(MeterRegistry registry,
+                                        @Value("${member.search.coalescing.timeout:5s}") Duration timeout) {
+        this.timeout = timeout;
+        this.leaders = registry.counter("member.search.coalescing", "role", "leader");
+        this.followers = registry.counter("member.search.coalescing", "role", "follower");
+        this.timeouts = registry.counter("member.search.coalescing", "role", "timeout");
+        registry.gauge("member.search.coalescing.ratio", this, MemberSearchCoalescingAspect::coalescingRatio);
+        registry.gaugeMapSize("member.search.coalescing.in-flight", Collections.emptyList(), inFlight);
+    }
+
+    @Around("study.querydsl.repository.MemberRepositoryPointcuts.searchMethods()")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return joinPoint.proceed();
+        }
+
+        List<Object> key = MemberSearchKey.of(joinPoint);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running == null) {
+            return lead(joinPoint, key, mine);
+        }
+
+        followers.increment();
+        try {
+            return running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn("coalesced member search timed out after {}, running it directly: {}", timeout, key);
+            return joinPoint.proceed();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object lead(ProceedingJoinPoint joinPoint, List<Object> key, CompletableFuture<Object> mine) throws Throwable {
+        leaders.increment();
+        try {
+            Object result = joinPoint.proceed();
+            mine.complete(result);
+            return result;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : (followers.count() - timeouts.count()) / total;
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        inFlight.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.repository;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색 메서드 호출의 키: 메서드명 + 정규화된 검색 조건 + 나머지 인자(Pageable 등)
+ * (MemberSearchCacheAspect, MemberSearchCoalescingAspect)
+ */
+final class MemberSearchKey {
+
+    private MemberSearchKey() {
+    }
+
+    static List<Object> of(ProceedingJoinPoint joinPoint) {
+        List<Object> key = new ArrayList<>();
+        key.add(joinPoint.getSignature().getName());
+        for (Object arg : joinPoint.getArgs()) {
+            key.add(keyOf(arg));
+        }
+        return key;
+    }
+
+    // 호출한 쪽이 나중에 바꿀 수 있는 조건 객체 / 목록은 복사해서 키로 쓴다.
+    private static Object keyOf(Object arg) {
+        if (arg instanceof MemberSearchCondition) {
+            return ((MemberSearchCondition) arg).normalized();
+        }
+        if (arg instanceof List) {
+            List<Object> copy = new ArrayList<>();
+            for (Object element : (List<?>) arg) {
+                copy.add(keyOf(element));
+            }
+            return copy;
+        }
+        return arg;
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import org.hibernate.annotations.QueryHints;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+import static org.apache.logging.log4j.util.Strings.isEmpty;
+
+/**
+ * 미리 만들어 둔 검색 JPQL
+ *
+ * 검색 조건 4개(회원명, 팀, 나이 이상, 나이 이하)가 있고 없고의 조합은 16가지뿐이다.
+ * 조합별 JPQL 문자열을 처음 한번만 만들어 두고, 호출할 때는 파라미터만 바인딩한다.
+ * 매번 Querydsl 로 프로젝션/조인/where 를 새로 만들고 JPQL 로 직렬화하는 비용이 없어지고,
+ * JPQL 문자열이 항상 같아서 하이버네이트 쿼리 플랜 캐시도 항상 적중한다.
+ */
+final class MemberSearchTemplates {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final String[] JPQL = new String[16];
+
+    static {
+        for (int mask = 0; mask < JPQL.length; mask++) {
+            JPQL[mask] = render(mask);
+        }
+    }
+
+    private MemberSearchTemplates() {
+    }
+
+    /**
+     * @param teamIds 팀명 조건이 있을 때 TeamIdResolver 로 바꾼 팀 id 목록 (비어 있으면 안 된다)
+     * @param sort    order by 절 (정렬 조합도 몇 가지뿐이라 쿼리 플랜 캐시에 그대로 들어간다)
+     */
+    static TypedQuery<MemberTeamDto> create(EntityManager em, MemberSearchCondition condition, List<Long> teamIds,
+                                            MemberSort sort) {
+        int mask = mask(condition);
+        TypedQuery<MemberTeamDto> query = em.createQuery(JPQL[mask] + sort.toJpql(), MemberTeamDto.class)
+                .setHint(QueryHints.READ_ONLY, true);
+        if ((mask & USERNAME) != 0) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if ((mask & TEAM) != 0) {
+            query.setParameter("teamIds", teamIds);
+        }
+        if ((mask & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((mask & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    private static int mask(MemberSearchCondition condition) {
+        int mask = 0;
+        if (!isEmpty(condition.getUsername())) mask |= USERNAME;
+        if (!isEmpty(condition.getTeamName())) mask |= TEAM;
+        if (condition.getAgeGoe() != null) mask |= AGE_GOE;
+        if (condition.getAgeLoe() != null) mask |= AGE_LOE;
+        return mask;
+    }
+
+    private static String render(int mask) {
+        StringBuilder jpql = new StringBuilder()
+                .append("select new study.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)")
+                .append(" from Member m left join m.team t");
+        String prefix = " where ";
+        if ((mask & USERNAME) != 0) {
+            jpql.append(prefix).append("m.username = :username");
+            prefix = " and ";
+        }
+        if ((mask & TEAM) != 0) {
+            jpql.append(prefix).append("m.team.id in :teamIds");
+            prefix = " and ";
+        }
+        if ((mask & AGE_GOE) != 0) {
+            jpql.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if ((mask & AGE_LOE) != 0) {
+            jpql.append(prefix).append("m.age <= :ageLoe");
+        }
+        return jpql.toString();
+    }
+}
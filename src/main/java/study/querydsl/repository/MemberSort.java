@@ -0,0 +1,163 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+
+/**
+ * Pageable 의 Sort -> 검색 쿼리의 order by
+ *
+ * 인덱스로 정렬할 수 있는 경우만 허용한다. 인덱스가 없는 정렬은 조건에 맞는 row 를 전부 읽고 정렬(filesort)해야 해서
+ * 잘못된 ?sort= 하나로 테이블 전체를 정렬하게 된다.
+ * - 정렬 속성은 memberId(id), username, age, teamId 만 허용한다. (teamName 은 team 조인 후 정렬이라 불가)
+ * - 정렬 속성 순서가 member 인덱스의 앞부분과 같아야 한다. (INDEXES, 읽기 모델도 같은 인덱스를 둔다)
+ * - 방향은 모두 같아야 한다. (인덱스를 역방향으로 읽는 것은 되지만 섞인 방향은 안 된다)
+ * - 마지막에 member id 를 같은 방향으로 붙여서 같은 값끼리의 순서를 고정한다. (페이지 사이에 row 가 빠지거나 겹치지 않는다)
+ * 규칙에 맞지 않으면 InvalidSearchRequestException 을 던진다.
+ */
+final class MemberSort {
+
+    static final MemberSort UNSORTED = new MemberSort(Collections.emptyList(), Order.ASC);
+
+    enum Key {
+        MEMBER_ID(member.id, "m.id", memberTeamView.memberId),
+        USERNAME(member.username, "m.username", memberTeamView.username),
+        AGE(member.age, "m.age", memberTeamView.age),
+        TEAM_ID(member.team.id, "m.team.id", memberTeamView.teamId);
+
+        private final ComparableExpressionBase<?> path;
+        private final String jpql;
+        private final ComparableExpressionBase<?> viewPath;
+
+        Key(ComparableExpressionBase<?> path, String jpql, ComparableExpressionBase<?> viewPath) {
+            this.path = path;
+            this.jpql = jpql;
+            this.viewPath = viewPath;
+        }
+    }
+
+    private static final Map<String, Key> PROPERTIES = new HashMap<>();
+
+    static {
+        PROPERTIES.put("id", Key.MEMBER_ID);
+        PROPERTIES.put("memberId", Key.MEMBER_ID);
+        PROPERTIES.put("username", Key.USERNAME);
+        PROPERTIES.put("age", Key.AGE);
+        PROPERTIES.put("teamId", Key.TEAM_ID);
+    }
+
+    // PK, idx_member_username, idx_member_age (age, member_id), idx_member_team_age (team_id, age, member_id)
+    // member_team_view 에도 같은 모양의 인덱스가 있다. (MemberTeamView)
+    private static final List<List<Key>> INDEXES = Arrays.asList(
+            Arrays.asList(Key.MEMBER_ID),
+            Arrays.asList(Key.USERNAME, Key.MEMBER_ID),
+            Arrays.asList(Key.AGE, Key.MEMBER_ID),
+            Arrays.asList(Key.TEAM_ID, Key.AGE, Key.MEMBER_ID));
+
+    private final List<Key> keys;
+    private final Order direction;
+
+    private MemberSort(List<Key> keys, Order direction) {
+        this.keys = keys;
+        this.direction = direction;
+    }
+
+    static MemberSort of(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return UNSORTED;
+        }
+
+        List<Key> keys = new ArrayList<>();
+        Sort.Direction direction = null;
+        for (Sort.Order order : sort) {
+            Key key = PROPERTIES.get(order.getProperty());
+            if (key == null) {
+                throw new InvalidSearchRequestException("정렬할 수 없는 속성입니다: " + order.getProperty()
+                        + " (가능: " + PROPERTIES.keySet() + ")");
+            }
+            if (order.isIgnoreCase()) {
+                throw new InvalidSearchRequestException("대소문자 무시 정렬은 인덱스를 쓸 수 없습니다: " + order.getProperty());
+            }
+            if (direction != null && direction != order.getDirection()) {
+                throw new InvalidSearchRequestException("정렬 방향이 섞여 있으면 인덱스를 쓸 수 없습니다: " + sort);
+            }
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+            direction = order.getDirection();
+        }
+        // id 는 유일하므로 그 뒤의 정렬은 의미가 없다.
+        if (keys.contains(Key.MEMBER_ID)) {
+            keys.subList(keys.indexOf(Key.MEMBER_ID) + 1, keys.size()).clear();
+        } else {
+            keys.add(Key.MEMBER_ID);
+        }
+        if (INDEXES.stream().noneMatch(index -> startsWith(index, keys))) {
+            throw new InvalidSearchRequestException("인덱스로 처리할 수 없는 정렬입니다: " + sort);
+        }
+        return new MemberSort(keys, direction.isAscending() ? Order.ASC : Order.DESC);
+    }
+
+    private static boolean startsWith(List<Key> index, List<Key> keys) {
+        return index.size() >= keys.size() && index.subList(0, keys.size()).equals(keys);
+    }
+
+    boolean isSorted() {
+        return !keys.isEmpty();
+    }
+
+    /**
+     * member / team 조인 쿼리 (Querydsl)
+     */
+    OrderSpecifier<?>[] toOrderSpecifiers() {
+        OrderSpecifier<?>[] orders = new OrderSpecifier<?>[keys.size()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = orderSpecifier(keys.get(i).path);
+        }
+        return orders;
+    }
+
+    /**
+     * member_team_view 읽기 모델
+     */
+    OrderSpecifier<?>[] toViewOrderSpecifiers() {
+        OrderSpecifier<?>[] orders = new OrderSpecifier<?>[keys.size()];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = orderSpecifier(keys.get(i).viewPath);
+        }
+        return orders;
+    }
+
+    /**
+     * MemberSearchTemplates 의 JPQL (별칭 m) 뒤에 붙이는 order by 절. 정렬이 없으면 빈 문자열
+     */
+    String toJpql() {
+        if (keys.isEmpty()) {
+            return "";
+        }
+        StringBuilder jpql = new StringBuilder(" order by ");
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append(keys.get(i).jpql).append(direction == Order.ASC ? " asc" : " desc");
+        }
+        return jpql.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private OrderSpecifier<?> orderSpecifier(ComparableExpressionBase<?> path) {
+        return new OrderSpecifier(direction, path);
+    }
+}
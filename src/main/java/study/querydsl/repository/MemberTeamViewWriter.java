@@ -0,0 +1,134 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.MemberDataChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.function.Supplier;
+
+/**
+ * member_team_view 재생성
+ *
+ * 벌크 연산(update / delete ... execute())은 하이버네이트 이벤트를 발생시키지 않기 때문에
+ * 벌크 연산 후에는 영향을 받은 범위를 원본 테이블에서 다시 만든다.
+ *
+ * 읽기 모델을 켜면 (member.search.read-model.enabled=true)
+ * - 기동이 끝나면 전체를 다시 만들고 나서 검색에 쓰게 한다. (기존 DB 에서 처음 켜는 경우)
+ * - 범위를 알 수 없는 벌크 SQL (refreshing 밖에서 실행한 member / team 의 update, delete)은 그 트랜잭션이 끝난 후
+ *   전체를 다시 만들고, 그동안 검색은 조인 쿼리를 쓴다.
+ */
+@Slf4j
+@Component
+public class MemberTeamViewWriter {
+
+    private static final String INSERT_SELECT =
+            "insert into member_team_view (member_id, username, age, team_id, team_name)"
+                    + " select m.member_id, m.username, m.age, t.id, t.name"
+                    + " from member m left join team t on t.id = m.team_id";
+
+    private static final String REBUILD_KEY = MemberTeamViewWriter.class.getName() + ".rebuild";
+    private static final ThreadLocal<Boolean> REFRESHING = new ThreadLocal<>();
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberReadModelRepository readModel;
+    private final TransactionTemplate requiresNew;
+
+    public MemberTeamViewWriter(EntityManager em, JdbcTemplate jdbcTemplate, MemberReadModelRepository readModel,
+                                PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readModel = readModel;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    public void rebuild() {
+        em.flush();
+        jdbcTemplate.update("delete from member_team_view");
+        jdbcTemplate.update(INSERT_SELECT);
+    }
+
+    /**
+     * member_id 가 [fromId, toId] 인 row 만 다시 만든다.
+     */
+    @Transactional
+    public void refresh(long fromId, long toId) {
+        em.flush();
+        jdbcTemplate.update("delete from member_team_view where member_id between ? and ?", fromId, toId);
+        jdbcTemplate.update(INSERT_SELECT + " where m.member_id between ? and ?", fromId, toId);
+    }
+
+    /**
+     * work 안에서 실행하는 벌크 SQL 은 호출한 쪽이 refresh() 로 직접 반영한다. (전체를 다시 만들지 않는다)
+     */
+    public <T> T refreshing(Supplier<T> work) {
+        if (REFRESHING.get() != null) {
+            return work.get();
+        }
+        REFRESHING.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            REFRESHING.remove();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!readModel.isEnabled()) {
+            return;
+        }
+        requiresNew.executeWithoutResult(status -> rebuild());
+        readModel.markBackfilled();
+        log.info("member_team_view rebuilt, search reads from the read model");
+    }
+
+    @EventListener
+    public void onChange(MemberDataChangedEvent event) {
+        if (!readModel.isEnabled() || !event.isBulk() || REFRESHING.get() != null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            readModel.markStale();
+            rebuildAfterChange();
+            return;
+        }
+        // 트랜잭션당 한번만 다시 만든다. 커밋 전까지도 이 트랜잭션의 검색은 자기 변경이 보여야 하므로 조인을 쓴다.
+        if (TransactionSynchronizationManager.hasResource(REBUILD_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REBUILD_KEY, Boolean.TRUE);
+        readModel.markStale();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REBUILD_KEY);
+                rebuildAfterChange();
+            }
+        });
+    }
+
+    // 트랜잭션이 끝난 후에는 원래 트랜잭션에 참여하지 않도록 새 트랜잭션으로 실행한다.
+    private void rebuildAfterChange() {
+        try {
+            requiresNew.executeWithoutResult(status -> rebuild());
+        } catch (RuntimeException e) {
+            // 다시 만들지 못하면 조인 쿼리로 계속 검색한다.
+            log.error("member_team_view rebuild failed, search keeps using the join query", e);
+            return;
+        }
+        readModel.markRebuilt();
+    }
+}
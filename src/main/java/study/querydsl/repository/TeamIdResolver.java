@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.MemberDataChangedEvent;
+import study.querydsl.entity.Team;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀명 -> 팀 id 변환 캐시
+ *
+ * 팀명 조건을 team.name = ? 대신 member.team.id in (?) 로 바꾸면 member 테이블만 보고 필터링할 수 있다.
+ * 팀은 작고 거의 바뀌지 않기 때문에 변환 결과를 메모리에 캐시하고, Team 이 바뀌면 비운다.
+ * (팀명은 유니크가 아니라서 id 목록으로 변환한다)
+ *
+ * 읽기/쓰기 트랜잭션 안에서는 캐시를 거치지 않는다. 같은 트랜잭션에서 만든 팀은 flush 후 조회해야 보인다. (MemberCountCache 와 같다)
+ * 없는 팀명(빈 목록)은 캐시하지 않는다. 곧 다른 트랜잭션이 그 팀을 만들 수 있기 때문이다.
+ */
+@Component
+public class TeamIdResolver {
+
+    private final JPAQueryFactory queryFactory;
+    private final Cache<String, List<Long>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public TeamIdResolver(JPAQueryFactory queryFactory,
+                          @Value("${member.search.team-cache.ttl:10m}") Duration ttl,
+                          @Value("${member.search.team-cache.max-size:1000}") long maxSize) {
+        this.queryFactory = queryFactory;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public List<Long> resolve(String teamName) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return query(teamName);
+        }
+        List<Long> ids = cache.getIfPresent(teamName);
+        if (ids == null) {
+            // 조회 전 flush 로 캐시가 비워질 수 있어서 loader 로 넣지 않는다. (MemberCountCache 참고)
+            long before = generation.get();
+            ids = query(teamName);
+            if (!ids.isEmpty()) {
+                cache.put(teamName, ids);
+                if (generation.get() != before) {
+                    cache.invalidate(teamName);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> query(String teamName) {
+        return queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(teamName))
+                .fetch();
+    }
+
+    @EventListener
+    public void invalidate(MemberDataChangedEvent event) {
+        if (event.getEntityType() == Team.class) {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.entity.Team;
+
+public interface TeamRepositoryCustom {
+    Page<Team> findTeamsWithMembers(Pageable pageable);
+}
@@ -0,0 +1,52 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.CountQueryMetrics;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+    private final CountQueryMetrics countQueryMetrics;
+
+    public TeamRepositoryImpl(JPAQueryFactory queryFactory, CountQueryMetrics countQueryMetrics) {
+        this.queryFactory = queryFactory;
+        this.countQueryMetrics = countQueryMetrics;
+    }
+
+    /**
+     * 팀을 최근 생성 순으로 페이징하면서 members 까지 한번에 가져온다. (IdFirstPager)
+     *
+     * @param pageable
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Team> findTeamsWithMembers(Pageable pageable) {
+        List<Team> content = IdFirstPager.fetchPage(
+                queryFactory
+                        .select(team.id)
+                        .from(team)
+                        .orderBy(team.id.desc()),
+                pageable,
+                ids -> queryFactory
+                        .selectFrom(team)
+                        .leftJoin(team.members, member).fetchJoin()
+                        .where(team.id.in(ids))
+                        .fetch(),
+                Team::getId);
+
+        return countQueryMetrics.getPage(content, pageable, () -> queryFactory
+                .select(team.id.count())
+                .from(team)
+                .fetchOne());
+    }
+}
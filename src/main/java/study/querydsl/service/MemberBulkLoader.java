@@ -0,0 +1,113 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberDataChangeListener;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberReadModelRepository;
+import study.querydsl.repository.MemberTeamViewWriter;
+import study.querydsl.repository.TeamIdResolver;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대량 회원 적재
+ *
+ * - id 는 pooled 시퀀스(allocationSize = 50)로 받기 때문에 insert 마다 시퀀스를 조회하지 않는다.
+ * - hibernate.jdbc.batch_size 만큼 insert 를 모아서 JDBC 배치로 보낸다. (order_inserts)
+ * - batchSize 건마다 flush() / clear() 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - 입력은 Iterator 로 받아서 한 건씩 읽는다. 전체를 메모리에 올리지 않는다.
+ * - 변경 이벤트(캐시 비우기)는 건마다가 아니라 적재가 끝난 후 한번만 발행하고,
+ *   읽기 모델을 쓰면 적재한 id 범위를 한번에 다시 만든다. (건마다 merge 하지 않는다)
+ */
+@Slf4j
+@Service
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TeamIdResolver teamIdResolver;
+    private final MemberDataChangeListener changeListener;
+    private final MemberReadModelRepository readModel;
+    private final MemberTeamViewWriter readModelWriter;
+    private final int batchSize;
+
+    public MemberBulkLoader(EntityManager em, TeamIdResolver teamIdResolver, MemberDataChangeListener changeListener,
+                            MemberReadModelRepository readModel, MemberTeamViewWriter readModelWriter,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.teamIdResolver = teamIdResolver;
+        this.changeListener = changeListener;
+        this.readModel = readModel;
+        this.readModelWriter = readModelWriter;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public MemberBulkLoadResult load(Iterator<MemberImportRow> rows) {
+        return changeListener.batch(() -> loadRows(rows));
+    }
+
+    private MemberBulkLoadResult loadRows(Iterator<MemberImportRow> rows) {
+        long start = System.currentTimeMillis();
+        Map<String, Long> teamIds = new HashMap<>();
+        Map<Long, Team> teams = new HashMap<>(); // 현재 영속성 컨텍스트에 있는 팀 (clear 할 때 같이 비운다)
+        long count = 0;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+
+        while (rows.hasNext()) {
+            MemberImportRow row = rows.next();
+            Team team = row.getTeamName() == null ? null : team(row.getTeamName(), teamIds, teams);
+            Member member = new Member(row.getUsername(), row.getAge(), team);
+            em.persist(member);
+            minId = Math.min(minId, member.getId());
+            maxId = Math.max(maxId, member.getId());
+
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+                teams.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        if (count > 0 && readModel.isEnabled()) {
+            readModelWriter.refresh(minId, maxId);
+        }
+
+        MemberBulkLoadResult result = new MemberBulkLoadResult(count, System.currentTimeMillis() - start);
+        log.info("member bulk load: {} rows, {} ms, {} rows/sec",
+                result.getRows(), result.getElapsedMillis(), String.format("%.1f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 팀명으로 팀을 찾고 없으면 만든다.
+     * clear() 이후에는 id 로 다시 조회한다. (Team 은 2차 캐시에 있어서 보통 DB 를 다시 조회하지 않는다)
+     */
+    private Team team(String teamName, Map<String, Long> teamIds, Map<Long, Team> teams) {
+        Long teamId = teamIds.get(teamName);
+        if (teamId == null) {
+            List<Long> found = teamIdResolver.resolve(teamName);
+            if (found.isEmpty()) {
+                Team team = new Team(teamName);
+                em.persist(team);
+                teamIds.put(teamName, team.getId());
+                teams.put(team.getId(), team);
+                return team;
+            }
+            teamId = found.get(0);
+            teamIds.put(teamName, teamId);
+        }
+        return teams.computeIfAbsent(teamId, id -> em.find(Team.class, id));
+    }
+}
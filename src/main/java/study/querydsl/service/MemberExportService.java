@@ -0,0 +1,88 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 한 건씩 읽어서 바로 응답 스트림에 쓴다.
+ *
+ * 결과 전체를 List 로 만들지 않기 때문에 조건 없는 대량 export 도 힙을 일정하게 쓴다.
+ * 스트림(JDBC 커서)이 열려 있는 동안 트랜잭션을 유지해야 해서 서비스에서 트랜잭션을 건다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        @Getter
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+    }
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, Format format, int fetchSize, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, fetchSize)) {
+            if (format == Format.CSV) {
+                writer.write("memberId,username,age,teamId,teamName\n");
+            }
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                MemberTeamDto dto = iterator.next();
+                writer.write(format == Format.CSV ? toCsv(dto) : objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private String toCsv(MemberTeamDto dto) {
+        return dto.getMemberId() + ","
+                + csvField(dto.getUsername()) + ","
+                + dto.getAge() + ","
+                + (dto.getTeamId() == null ? "" : dto.getTeamId()) + ","
+                + csvField(dto.getTeamName());
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
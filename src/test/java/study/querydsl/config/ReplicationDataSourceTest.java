@@ -0,0 +1,132 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 메모리 H2 두 개를 primary / replica 로 띄워서 라우팅을 확인한다.
+ *
+ * 두 DB 는 복제 관계가 없으므로 테스트 전에 primary 의 스키마와 데이터를 replica 로 복사하고,
+ * replica 에만 있는 회원(replicaOnly)으로 어느 쪽에서 읽었는지 구분한다.
+ * 지연 시간은 replica 의 replica_lag 테이블 값을 lag-query 로 읽는다. (주기 확인은 사실상 끄고 check() 를 직접 부른다)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicationDataSourceTest.PRIMARY_URL,
+        "spring.datasource.replica.url=" + ReplicationDataSourceTest.REPLICA_URL,
+        "spring.datasource.replica.lag-query=select lag_seconds from replica_lag",
+        "spring.datasource.replica.max-lag=5s",
+        "spring.datasource.replica.check-interval=1h"
+})
+class ReplicationDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:replication_primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replication_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ReplicationDataSourceConfig replicationDataSourceConfig;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void copyPrimaryToReplica() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rs = statement.executeQuery("script")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+            statement.execute("create table replica_lag (lag_seconds bigint)");
+            statement.execute("insert into replica_lag values (0)");
+            statement.execute("insert into member (member_id, username, age) values (1000000, 'replicaOnly', 0)");
+        }
+
+        replicationDataSourceConfig.getLagMonitor().check();
+        assertThat(replicationDataSourceConfig.getLagMonitor().isReplicaUsable()).isTrue();
+    }
+
+    @AfterEach
+    public void deletePrimaryWrites() throws SQLException {
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement()) {
+            statement.execute("delete from member where username = 'primaryWrite'");
+        }
+    }
+
+    @Test
+    public void readOnlySearchUsesReplica() {
+        assertThat(memberRepository.search(usernameCondition("replicaOnly")))
+                .extracting("username")
+                .containsExactly("replicaOnly");
+    }
+
+    @Test
+    public void writeUsesPrimary() throws SQLException {
+        new TransactionTemplate(transactionManager).execute(status ->
+                memberRepository.save(new Member("primaryWrite", 20)));
+
+        assertThat(countByUsername(PRIMARY_URL, "primaryWrite")).isEqualTo(1);
+        assertThat(countByUsername(REPLICA_URL, "primaryWrite")).isEqualTo(0);
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary() throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("update replica_lag set lag_seconds = 60");
+        }
+        replicationDataSourceConfig.getLagMonitor().check();
+        assertThat(replicationDataSourceConfig.getLagMonitor().isReplicaUsable()).isFalse();
+
+        // primary 에는 replicaOnly 가 없다.
+        assertThat(memberRepository.search(usernameCondition("replicaOnly"))).isEmpty();
+        assertThat(memberRepository.search(usernameCondition("member1")))
+                .extracting("username")
+                .containsExactly("member1");
+    }
+
+    private MemberSearchCondition usernameCondition(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private long countByUsername(String url, String username) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from member where username = '" + username + "'")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SearchExecutorConfigTest {
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    @Qualifier("memberSearchExecutor")
+    Executor memberSearchExecutor;
+
+    @Autowired
+    Executor executor;
+
+    @Test
+    public void applicationTaskExecutorIsKept() {
+        Object applicationTaskExecutor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+
+        // 한정자 없이 주입하면 부트 기본 Executor, 검색용은 memberSearchExecutor 로만 받는다.
+        assertThat(executor).isSameAs(applicationTaskExecutor);
+        assertThat(memberSearchExecutor).isNotSameAs(applicationTaskExecutor);
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void keysetBadRequest() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void keysetSizeIsCapped() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "100000"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void invalidSortBadRequest() throws Exception {
+        mockMvc.perform(get("/v2/members").param("sort", "teamName"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v5/members").param("sort", "username,desc").param("sort", "age,asc"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v2/members").param("sort", "username"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void invalidFieldBadRequest() throws Exception {
+        mockMvc.perform(get("/v2/members").param("fields", "password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v3/members").param("fields", "username,password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v2/members").param("fields", "memberId,username"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void importSkipsOnlyHeaderLine() throws Exception {
+        String csv = "username,age,teamName\n"
+                + "username1,20,importTeam\n"
+                + "usernameX,30,\n";
+
+        mockMvc.perform(post("/members/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2));
+
+        // 헤더가 없으면 첫 줄도 데이터다.
+        mockMvc.perform(post("/members/import").contentType("text/csv").content("username2,40,importTeam\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1));
+    }
+
+    @Test
+    public void importMalformedLineBadRequest() throws Exception {
+        mockMvc.perform(post("/members/import").contentType("text/csv")
+                .content("username,age,teamName\nbad1,10,importTeam\nbad2\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(startsWith("3번째 줄")));
+
+        mockMvc.perform(post("/members/import").contentType("text/csv").content("bad3,ten,importTeam\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(startsWith("1번째 줄")));
+    }
+}
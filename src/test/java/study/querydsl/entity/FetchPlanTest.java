@@ -0,0 +1,84 @@
+package study.querydsl.entity;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.monitoring.QueryScope;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+public class FetchPlanTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("fetchTeam" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i + "_1", 10, team));
+            em.persist(new Member("member" + i + "_2", 20, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void memberToTeamWithEntityGraph() {
+        try (QueryScope scope = QueryScope.open()) {
+            List<Member> members = memberRepository.findAll();
+            members.forEach(m -> m.getTeam().getName());
+
+            assertThat(scope.getStatementCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void teamToMembersWithBatchFetch() {
+        try (QueryScope scope = QueryScope.open()) {
+            List<Team> teams = em.createQuery("select t from Team t where t.name like 'fetchTeam%'", Team.class)
+                    .getResultList();
+            teams.forEach(t -> t.getMembers().size());
+
+            // 팀 조회 1번 + 팀별 members 를 in 절로 모아서 1번
+            assertThat(scope.getStatementCount()).isEqualTo(2);
+            assertThat(scope.getRepeatedStatements(2)).isEmpty();
+        }
+    }
+
+    @Test
+    public void teamPageWithMembersFetchJoin() {
+        try (QueryScope scope = QueryScope.open()) {
+            // 최근 생성 순이라 before() 에서 만든 팀이 앞에 온다.
+            Page<Team> page = teamRepository.findTeamsWithMembers(PageRequest.of(0, 2));
+
+            assertThat(page.getContent()).extracting("name").containsExactly("fetchTeam4", "fetchTeam3");
+            assertThat(page.getContent()).allMatch(t -> Hibernate.isInitialized(t.getMembers()));
+            assertThat(page.getContent().get(0).getMembers()).extracting("username")
+                    .containsExactlyInAnyOrder("member4_1", "member4_2");
+            assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(5);
+
+            // id 페이지 1번 + 페치 조인 1번 + 카운트 1번
+            assertThat(scope.getStatementCount()).isEqualTo(3);
+        }
+    }
+}
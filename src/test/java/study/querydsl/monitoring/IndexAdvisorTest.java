@@ -0,0 +1,52 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void searchQueriesUseIndexes() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 40, teamA));
+        em.flush();
+
+        for (MemberSearchCondition condition : IndexAdvisorRunner.conditions()) {
+            try (QueryScope scope = QueryScope.open()) {
+                assertThat(indexAdvisor.findTableScans(() ->
+                        memberRepository.searchPageComplex(condition, PageRequest.of(0, 20))))
+                        .as(condition.toString())
+                        .isEmpty();
+
+                // 결과가 한 페이지보다 적어도 카운트 쿼리까지 실행 계획을 확인했는지
+                assertThat(scope.getRepeatedStatements(1).keySet())
+                        .as(condition.toString())
+                        .anyMatch(sql -> sql.toLowerCase().startsWith("explain select count("));
+            }
+        }
+    }
+}
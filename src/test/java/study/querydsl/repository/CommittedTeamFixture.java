@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 커밋된 팀 하나와 그 팀 회원들 (다른 스레드나 캐시에서도 보여야 하는 테스트용)
+ *
+ * 테스트 트랜잭션으로 롤백되지 않으므로 @AfterEach 에서 delete() 로 지운다.
+ */
+class CommittedTeamFixture {
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private Long teamId;
+
+    CommittedTeamFixture(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * teamName 팀과 회원 usernamePrefix1 ~ usernamePrefixN (나이 10, 20, ...) 을 커밋한다.
+     */
+    void create(String teamName, String usernamePrefix, int memberCount) {
+        teamId = tx.execute(status -> {
+            Team team = new Team(teamName);
+            em.persist(team);
+            for (int i = 1; i <= memberCount; i++) {
+                em.persist(new Member(usernamePrefix + i, i * 10, team));
+            }
+            return team.getId();
+        });
+    }
+
+    /**
+     * 팀에 회원을 추가한다. 이미 트랜잭션 안이면 그 트랜잭션에 참여하고, 아니면 바로 커밋한다.
+     */
+    void addMember(String username, int age) {
+        tx.executeWithoutResult(status -> em.persist(new Member(username, age, em.find(Team.class, teamId))));
+    }
+
+    Long getTeamId() {
+        return teamId;
+    }
+
+    void delete() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+            em.createQuery("delete from Team t where t.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.bulk.chunk-size=2")
+@Transactional
+class MemberBulkChunkTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void chunksSkipNonMatchingIds() {
+        Team teamA = new Team("chunkTeamA");
+        Team teamB = new Team("chunkTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        // 조건에 맞는 회원 사이사이에 맞지 않는 회원을 끼워서 id 가 듬성듬성하게 만든다.
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("chunkMember" + i, 10, teamA));
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("otherMember" + i + "_" + j, 10, teamB));
+            }
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("chunkTeamA");
+
+        MemberBulkResult updated = memberRepository.bulkAgePlus(condition, 1);
+        assertThat(updated.getRowsPerChunk()).containsExactly(2L, 2L, 1L);
+
+        MemberBulkResult deleted = memberRepository.bulkDeleteByCondition(condition);
+        assertThat(deleted.getRowsPerChunk()).containsExactly(2L, 2L, 1L);
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+}
@@ -0,0 +1,141 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberDataChangedEvent;
+import study.querydsl.monitoring.QueryScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 카운트 방법별 검색 (CountStrategy)
+ *
+ * ASYNC 카운트는 다른 스레드의 트랜잭션에서 실행되므로 테스트 데이터를 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberCountStrategyTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    CommittedTeamFixture fixture;
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedTeamFixture(em, transactionManager);
+        fixture.create("countTeam", "count", 3);
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        fixture.delete();
+    }
+
+    @Test
+    public void asyncCount() {
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition(), PageRequest.of(0, 2), CountStrategy.ASYNC);
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void estimatedCount() {
+        // 조건이 있으면 정확히 센다.
+        assertThat(memberRepository.searchPageComplex(condition(), PageRequest.of(0, 2), CountStrategy.ESTIMATED)
+                .getTotalElements()).isEqualTo(3);
+
+        // 조건이 없으면 count 쿼리 대신 DB 통계를 읽는다.
+        try (QueryScope scope = QueryScope.open()) {
+            Page<MemberTeamDto> page = memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 2),
+                    CountStrategy.ESTIMATED);
+
+            assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(0);
+            assertThat(scope.getRepeatedStatements(1).keySet()).noneMatch(sql -> sql.contains("count("));
+        }
+    }
+
+    @Test
+    public void cachedCountIsInvalidatedOnWrite() {
+        assertThat(cachedTotal()).isEqualTo(3);
+
+        fixture.addMember("count4", 40);
+
+        assertThat(cachedTotal()).isEqualTo(4);
+    }
+
+    @Test
+    public void cachedCountSkipsReadWriteTransaction() {
+        assertThat(cachedTotal()).isEqualTo(3);
+
+        tx.executeWithoutResult(status -> {
+            fixture.addMember("count4", 40);
+            // 자기 트랜잭션에서는 커밋 전 row 까지 센다.
+            assertThat(cachedTotal()).isEqualTo(4);
+            // 다른 스레드에는 커밋 전 카운트가 캐시로 새지 않는다.
+            assertThat(CompletableFuture.supplyAsync(this::cachedTotal).join()).isEqualTo(3);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cachedTotal()).isEqualTo(3);
+    }
+
+    @Test
+    public void countInvalidatedWhileCountingIsNotCached() {
+        MemberCountCache cache = new MemberCountCache(Duration.ofMinutes(1), 100);
+
+        // 세는 중에 다른 트랜잭션이 커밋해서 캐시가 비워진 경우
+        assertThat(cache.get(condition(), () -> {
+            cache.invalidate(new MemberDataChangedEvent(Member.class));
+            return 3L;
+        })).isEqualTo(3);
+
+        assertThat(cache.get(condition(), () -> 4L)).isEqualTo(4);
+    }
+
+    @Test
+    public void countCacheKeysDoNotCollide() {
+        MemberCountCache cache = new MemberCountCache(Duration.ofMinutes(1), 100);
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setUsername("x, teamName=y");
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setUsername("x");
+        second.setTeamName("y, teamName=null");
+
+        assertThat(cache.get(first, () -> 1L)).isEqualTo(1);
+        assertThat(cache.get(second, () -> 2L)).isEqualTo(2);
+    }
+
+    private long cachedTotal() {
+        return memberRepository.searchPageComplex(condition(), PageRequest.of(0, 2), CountStrategy.CACHED).getTotalElements();
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("countTeam");
+        return condition;
+    }
+}
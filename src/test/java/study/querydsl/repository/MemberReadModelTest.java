@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.search.read-model.enabled=true")
+@Transactional
+class MemberReadModelTest {
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberReadModelRepository memberReadModelRepository;
+
+    @Autowired
+    MemberTeamViewWriter memberTeamViewWriter;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void backfilledAtStartup() {
+        assertThat(memberReadModelRepository.isReadable()).isTrue();
+    }
+
+    @Test
+    public void readModelSyncTest() {
+        Team teamA = new Team("viewTeamA");
+        em.persist(teamA);
+        Member member1 = new Member("viewMember1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("viewTeamA");
+
+        List<MemberTeamDto> result = memberReadModelRepository.content(condition, Pageable.unpaged());
+        assertThat(result).extracting("username").containsExactly("viewMember1");
+
+        // 벌크 연산은 이벤트가 없어서 재생성해야 반영된다.
+        em.createQuery("update Member m set m.age = m.age + 1 where m.id = :id")
+                .setParameter("id", member1.getId())
+                .executeUpdate();
+        memberTeamViewWriter.refresh(member1.getId(), member1.getId());
+
+        assertThat(memberReadModelRepository.content(condition, Pageable.unpaged())).extracting("age").containsExactly(11);
+    }
+
+    @Test
+    public void bulkRefreshesReadModel() {
+        Team teamA = new Team("viewTeamB");
+        em.persist(teamA);
+        em.persist(new Member("viewMember2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("viewTeamB");
+        memberRepository.bulkAgePlus(condition, 1);
+
+        assertThat(memberReadModelRepository.content(condition, Pageable.unpaged())).extracting("age").containsExactly(21);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void unsyncedBulkFallsBackToJoinUntilRebuilt() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("viewTeamC");
+            em.persist(team);
+            em.persist(new Member("viewMember3", 30, team));
+            return team.getId();
+        });
+        MemberSearchCondition renamed = new MemberSearchCondition();
+        renamed.setTeamName("viewTeamRenamed");
+
+        try {
+            tx.executeWithoutResult(status -> {
+                // 팀명 벌크 변경은 읽기 모델에 바로 반영되지 않는다.
+                em.createQuery("update Team t set t.name = 'viewTeamRenamed' where t.id = :teamId")
+                        .setParameter("teamId", teamId)
+                        .executeUpdate();
+
+                assertThat(memberReadModelRepository.isReadable()).isFalse();
+                assertThat(memberRepository.search(renamed)).extracting("username").containsExactly("viewMember3");
+            });
+
+            // 커밋 후 전체를 다시 만들고 나서 다시 읽기 모델을 쓴다.
+            assertThat(memberReadModelRepository.isReadable()).isTrue();
+            assertThat(memberReadModelRepository.content(renamed, Pageable.unpaged()))
+                    .extracting("username").containsExactly("viewMember3");
+        } finally {
+            tx.executeWithoutResult(status -> {
+                em.createQuery("delete from Member m where m.team.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+                em.createQuery("delete from Team t where t.id = :teamId").setParameter("teamId", teamId).executeUpdate();
+            });
+        }
+    }
+}
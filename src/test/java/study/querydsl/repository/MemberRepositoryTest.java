@@ -3,18 +3,33 @@ package study.querydsl.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBulkResult;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryScope;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 @SpringBootTest
@@ -70,4 +85,331 @@ class MemberRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
 
     }
+
+    @Test
+    public void searchDynamicConditionTest() {
+        Team teamA = new Team("dynamicA");
+        Team teamB = new Team("dynamicB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("dynamic1", 10, teamA));
+        em.persist(new Member("dynamic2", 20, teamA));
+        em.persist(new Member("dynamic3", 30, teamB));
+        em.persist(new Member("dynamic4", 40, teamB));
+
+        // 팀명 목록 + 나이 범위
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamNames(Arrays.asList("dynamicA", "dynamicB", "noSuchTeam"));
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(30);
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("dynamic2", "dynamic3");
+
+        // 회원명과 회원명 목록은 교집합
+        MemberSearchCondition intersect = new MemberSearchCondition();
+        intersect.setUsername("dynamic1");
+        intersect.setUsernames(Arrays.asList("dynamic1", "dynamic2"));
+        assertThat(memberRepository.search(intersect)).extracting("username").containsExactly("dynamic1");
+
+        // 모순된 나이 범위는 쿼리 결과가 없다
+        MemberSearchCondition empty = new MemberSearchCondition();
+        empty.setUsernamePrefix("dynamic");
+        empty.setAgeGoe(40);
+        empty.setAgeLoe(10);
+        assertThat(memberRepository.search(empty)).isEmpty();
+
+        // OR 그룹 (접두사 조건과 and)
+        MemberSearchCondition young = new MemberSearchCondition();
+        young.setAgeLoe(10);
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(40);
+        MemberSearchCondition anyOf = new MemberSearchCondition();
+        anyOf.setUsernamePrefix("dynamic");
+        anyOf.setAnyOf(Arrays.asList(young, old));
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(anyOf, PageRequest.of(0, 10));
+        assertThat(page.getContent()).extracting("username").containsExactlyInAnyOrder("dynamic1", "dynamic4");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void teamCreatedInSameTransactionTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("lateTeam");
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        // 없던 팀명을 같은 트랜잭션에서 만들면 바로 보여야 한다.
+        Team team = new Team("lateTeam");
+        em.persist(team);
+        em.persist(new Member("late1", 10, team));
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("late1");
+    }
+
+    @Test
+    public void searchAllTest() {
+        Team teamA = new Team("batchA");
+        Team teamB = new Team("batchB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("batch1", 10, teamA));
+        em.persist(new Member("batch2", 20, teamA));
+        em.persist(new Member("batch3", 30, teamB));
+
+        MemberSearchCondition byName1 = new MemberSearchCondition();
+        byName1.setUsername("batch1");
+        MemberSearchCondition byName3 = new MemberSearchCondition();
+        byName3.setUsername("batch3");
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("batchA");
+        byTeam.setAgeGoe(15);
+        MemberSearchCondition none = new MemberSearchCondition();
+        none.setUsername("noSuchMember");
+
+        try (QueryScope scope = QueryScope.open()) {
+            List<List<MemberTeamDto>> results = memberRepository.searchAll(Arrays.asList(byName1, byName3, byTeam, none));
+
+            assertThat(results).hasSize(4);
+            assertThat(results.get(0)).extracting("username").containsExactly("batch1");
+            assertThat(results.get(1)).extracting("username").containsExactly("batch3");
+            assertThat(results.get(2)).extracting("username").containsExactly("batch2");
+            assertThat(results.get(3)).isEmpty();
+
+            // flush + 팀 id 조회를 빼면 검색 쿼리는 한번
+            assertThat(scope.getRepeatedStatements(1).keySet()).filteredOn(sql -> sql.contains("member0_.username"))
+                    .hasSize(1);
+            assertThat(scope.getRepeatedStatements(2).keySet()).noneMatch(sql -> sql.contains("member0_.username"));
+        }
+    }
+
+    @Test
+    public void searchKeysetTest() {
+        Team teamA = new Team("keysetTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("keyset" + i, 50 - i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("keysetTeam");
+
+        MemberKeysetPage first = memberRepository.searchKeyset(condition, MemberCursor.first(MemberCursor.Order.AGE_ID), 2);
+        assertThat(first.getContent()).extracting("age").containsExactly(10, 20);
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberKeysetPage second = memberRepository.searchKeyset(condition, MemberCursor.decode(first.getNextCursor()), 2);
+        assertThat(second.getContent()).extracting("age").containsExactly(30, 40);
+
+        MemberKeysetPage last = memberRepository.searchKeyset(condition, MemberCursor.decode(second.getNextCursor()), 2);
+        assertThat(last.getContent()).extracting("age").containsExactly(50);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchPageCountStrategyTest() {
+        Team teamA = new Team("pageCountTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("pageCount" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("pageCountTeam");
+
+        Page<MemberTeamDto> exact = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2), CountStrategy.EXACT);
+        Page<MemberTeamDto> cached = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2), CountStrategy.CACHED);
+
+        assertThat(exact.getTotalElements()).isEqualTo(5);
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        assertThat(cached.getContent()).extracting("username").containsExactly("pageCount0", "pageCount1");
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team teamA = new Team("sliceTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sliceTeam");
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(2, 2));
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchSortTest() {
+        Team teamA = new Team("sortTeam");
+        em.persist(teamA);
+        em.persist(new Member("sortB", 20, teamA));
+        em.persist(new Member("sortA", 20, teamA));
+        em.persist(new Member("sortC", 10, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sortTeam");
+
+        // 나이가 같으면 id 순서 (같은 방향)
+        Page<MemberTeamDto> byAge = memberRepository.searchPageComplex(condition,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age")));
+        assertThat(byAge.getContent()).extracting("username").containsExactly("sortA", "sortB", "sortC");
+
+        Page<MemberTeamDto> byUsername = memberRepository.searchPageSimple(condition,
+                PageRequest.of(0, 10, Sort.by("username")));
+        assertThat(byUsername.getContent()).extracting("username").containsExactly("sortA", "sortB", "sortC");
+
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10, Sort.by("teamName"))))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        assertThatThrownBy(() -> memberRepository.searchSlice(condition, PageRequest.of(0, 10, Sort.by("age", "username"))))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+    @Test
+    public void searchPageFieldsTest() {
+        Team teamA = new Team("fieldsTeam");
+        em.persist(teamA);
+        em.persist(new Member("fields1", 10, teamA));
+        em.persist(new Member("fields2", 20, teamA));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("fields");
+
+        try (QueryScope scope = QueryScope.capturing()) {
+            Page<Map<String, Object>> result = memberRepository.searchPageFields(condition,
+                    PageRequest.of(0, 10, Sort.by("username")), Arrays.asList("username", "teamId"), CountStrategy.EXACT);
+
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(result.getContent().get(0)).containsOnlyKeys("username", "teamId");
+            assertThat(result.getContent().get(0)).containsEntry("username", "fields1").containsEntry("teamId", teamA.getId());
+            // teamName 을 고르지 않았으므로 team 조인 없음
+            assertThat(scope.getCapturedStatements()).noneMatch(sql -> sql.contains("join"));
+        }
+
+        Page<Map<String, Object>> withTeam = memberRepository.searchPageFields(condition,
+                PageRequest.of(0, 10), Arrays.asList("teamName"), CountStrategy.EXACT);
+        assertThat(withTeam.getContent()).extracting(row -> row.get("teamName")).containsOnly("fieldsTeam");
+
+        assertThatThrownBy(() -> memberRepository.searchPageFields(condition, PageRequest.of(0, 10),
+                Arrays.asList("password"), CountStrategy.EXACT))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+    @Test
+    public void searchStreamTest() {
+        Team teamA = new Team("streamTeamA");
+        Team teamB = new Team("streamTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("stream1", 10, teamA));
+        em.persist(new Member("stream2", 20, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("streamTeamB");
+
+        List<String> usernames;
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, 1)) {
+            usernames = stream.map(MemberTeamDto::getUsername).collect(Collectors.toList());
+        }
+
+        assertThat(usernames).containsExactly("stream2");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void searchStreamRequiresTransaction() {
+        assertThatThrownBy(() -> memberRepository.searchStream(new MemberSearchCondition(), 10))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    public void paddedConditionTest() {
+        Team teamA = new Team("padTeamA");
+        em.persist(teamA);
+        em.persist(new Member("padMember1", 10, teamA));
+        em.persist(new Member("padMember2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" padMember1 ");
+        condition.setTeamName("padTeamA ");
+
+        // 컨텐츠와 카운트가 같은 (공백을 제거한) 조건으로 조회해야 한다.
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(result.getContent()).extracting("username").containsExactly("padMember1");
+        assertThat(result.getTotalElements()).isEqualTo(1);
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("padMember1");
+        assertThat(memberRepository.searchSlice(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("username").containsExactly("padMember1");
+    }
+
+    @Test
+    public void bulkTest() {
+        Team teamA = new Team("bulkTeamA");
+        Team teamB = new Team("bulkTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("bulkMember1", 10, teamA);
+        Member member2 = new Member("bulkMember2", 20, teamA);
+        Member member3 = new Member("bulkMember3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamA");
+
+        MemberBulkResult updated = memberRepository.bulkAgePlus(condition, 1);
+        assertThat(updated.getTotalRows()).isEqualTo(2);
+
+        // 영속성 컨텍스트가 비워져서 DB 값을 다시 읽는다.
+        assertThat(memberRepository.findById(member1.getId()).get().getAge()).isEqualTo(11);
+        assertThat(memberRepository.findById(member3.getId()).get().getAge()).isEqualTo(30);
+
+        MemberBulkResult deleted = memberRepository.bulkDeleteByCondition(condition);
+        assertThat(deleted.getTotalRows()).isEqualTo(2);
+        assertThat(memberRepository.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void mergeConditionsByTeamName() {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("mergeA");
+        teamA.setAgeGoe(10);
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("mergeB");
+        teamB.setAgeGoe(10);
+        MemberSearchCondition teamC = new MemberSearchCondition();
+        teamC.setTeamName("mergeC");
+        teamC.setAgeGoe(20);
+
+        List<MemberSearchCondition> merged = MemberConditionBatch.merge(Arrays.asList(teamA, teamB, teamC));
+
+        // 나이 조건이 같은 A, B 만 팀명 목록으로 합쳐진다.
+        assertThat(merged).hasSize(2);
+        assertThat(merged).extracting("teamNames")
+                .containsExactlyInAnyOrder(Arrays.asList("mergeA", "mergeB"), Arrays.asList("mergeC"));
+        assertThat(merged).extracting("teamName").containsOnlyNulls();
+    }
+
+    @Test
+    public void searchPageAsyncStatementsCountedInCallerScope() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        try (QueryScope scope = QueryScope.open()) {
+            Page<MemberTeamDto> result = memberRepository.searchPageAsync(condition, PageRequest.of(0, 3)).join();
+
+            assertThat(result.getContent()).extracting("username").containsExactly("member1");
+            // 컨텐츠 쿼리와 카운트 쿼리는 memberSearchExecutor 에서 실행되지만 호출한 쪽 구간에 잡힌다.
+            assertThat(scope.getStatementCount()).isGreaterThanOrEqualTo(2);
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberDataChangedEvent;
+import study.querydsl.monitoring.QueryScope;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 검색 결과 캐시 (MemberSearchCacheAspect)
+ *
+ * 캐시는 커밋된 데이터만 다루므로 테스트 데이터를 커밋하고, 끝나면 지운다.
+ */
+@SpringBootTest(properties = "member.search.result-cache.enabled=true")
+class MemberSearchCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchCacheAspect cacheAspect;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    CommittedTeamFixture fixture;
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        fixture = new CommittedTeamFixture(em, transactionManager);
+        fixture.create("cacheTeam", "cache", 2);
+        tx = new TransactionTemplate(transactionManager);
+        cacheAspect.getCache().invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        fixture.delete();
+    }
+
+    @Test
+    public void hitAndMiss() {
+        long hits = cacheAspect.stats().hitCount();
+        long misses = cacheAspect.stats().missCount();
+
+        List<MemberTeamDto> first = memberRepository.search(condition());
+        try (QueryScope scope = QueryScope.open()) {
+            List<MemberTeamDto> second = memberRepository.search(condition());
+
+            assertThat(second).isSameAs(first);
+            assertThat(scope.getStatementCount()).isZero();
+        }
+        assertThat(cacheAspect.stats().missCount() - misses).isEqualTo(1);
+        assertThat(cacheAspect.stats().hitCount() - hits).isEqualTo(1);
+
+        // 조건 값이 다르면 다른 키
+        MemberSearchCondition other = condition();
+        other.setAgeGoe(15);
+        assertThat(memberRepository.search(other)).extracting("username").containsExactly("cache2");
+    }
+
+    @Test
+    public void invalidatedOnEntityWrite() {
+        assertThat(memberRepository.search(condition())).hasSize(2);
+
+        fixture.addMember("cache3", 30);
+
+        assertThat(memberRepository.search(condition())).extracting("username")
+                .containsExactlyInAnyOrder("cache1", "cache2", "cache3");
+    }
+
+    @Test
+    public void invalidatedOnBulkUpdate() {
+        assertThat(memberRepository.search(condition())).extracting("age").containsExactlyInAnyOrder(10, 20);
+
+        tx.executeWithoutResult(status -> em.createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                .setParameter("teamId", fixture.getTeamId())
+                .executeUpdate());
+
+        assertThat(memberRepository.search(condition())).extracting("age").containsExactlyInAnyOrder(11, 21);
+    }
+
+    @Test
+    public void readWriteTransactionBypassesCache() {
+        assertThat(memberRepository.search(condition())).hasSize(2);
+
+        tx.executeWithoutResult(status -> {
+            fixture.addMember("cache3", 30);
+            // 자기 트랜잭션에서는 커밋 전 row 가 보인다.
+            assertThat(memberRepository.search(condition())).hasSize(3);
+            // 다른 스레드에는 커밋 전 결과가 캐시로 새지 않는다.
+            assertThat(CompletableFuture.supplyAsync(() -> memberRepository.search(condition())).join()).hasSize(2);
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberRepository.search(condition())).hasSize(2);
+    }
+
+    @Test
+    public void invalidatedWhileQueryingIsNotCached() throws Throwable {
+        MemberSearchCacheAspect aspect = new MemberSearchCacheAspect(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn("search");
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{condition()});
+        // 조회 중에 다른 트랜잭션이 커밋해서 캐시가 비워진 경우
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            aspect.invalidate(new MemberDataChangedEvent(Member.class));
+            return Collections.emptyList();
+        });
+
+        aspect.cached(joinPoint);
+
+        assertThat(aspect.getCache().asMap()).isEmpty();
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        return condition;
+    }
+}
@@ -0,0 +1,211 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.monitoring.MemberRepositoryMetricsAspect;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * MemberSearchCoalescingAspect 단위 테스트
+ *
+ * 레포지토리 대신 ProceedingJoinPoint 목을 쓴다. 첫 proceed() (leader 의 조회)는 release 가 열릴 때까지 막혀 있어서
+ * 그 사이에 들어온 호출이 follower 가 되는지 확인할 수 있다. 이후의 proceed() 는 바로 DIRECT 를 돌려준다.
+ */
+class MemberSearchCoalescingAspectTest {
+
+    private static final Object LEADER = new Object();
+    private static final Object DIRECT = new Object();
+
+    SimpleMeterRegistry registry;
+    ExecutorService executor;
+    CountDownLatch started;
+    CountDownLatch release;
+    AtomicInteger calls;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        calls = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentIdenticalCallsRunOnce() throws Throwable {
+        MemberSearchCoalescingAspect aspect = new MemberSearchCoalescingAspect(registry, Duration.ofSeconds(5));
+        ProceedingJoinPoint joinPoint = joinPoint(null);
+
+        List<Future<Object>> results = new ArrayList<>();
+        results.add(call(aspect, joinPoint));
+        started.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            results.add(call(aspect, joinPoint));
+        }
+        awaitCount("follower", 3);
+        release.countDown();
+
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(LEADER);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(ratio()).isEqualTo(0.75);
+    }
+
+    @Test
+    public void followerTimeoutRunsDirectly() throws Throwable {
+        MemberSearchCoalescingAspect aspect = new MemberSearchCoalescingAspect(registry, Duration.ofMillis(50));
+        ProceedingJoinPoint joinPoint = joinPoint(null);
+
+        Future<Object> leader = call(aspect, joinPoint);
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(aspect.coalesce(joinPoint)).isSameAs(DIRECT);
+        assertThat(count("timeout")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(LEADER);
+        assertThat(calls.get()).isEqualTo(2);
+        // 타임아웃 난 follower 는 합쳐진 것으로 치지 않는다.
+        assertThat(ratio()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void leaderExceptionPropagatesToFollowers() throws Throwable {
+        MemberSearchCoalescingAspect aspect = new MemberSearchCoalescingAspect(registry, Duration.ofSeconds(5));
+        IllegalStateException failure = new IllegalStateException("db down");
+        ProceedingJoinPoint joinPoint = joinPoint(failure);
+
+        Future<Object> leader = call(aspect, joinPoint);
+        started.await(5, TimeUnit.SECONDS);
+        Future<Object> follower = call(aspect, joinPoint);
+        awaitCount("follower", 1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseReference(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseReference(failure);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void readWriteTransactionBypassesCoalescing() throws Throwable {
+        MemberSearchCoalescingAspect aspect = new MemberSearchCoalescingAspect(registry, Duration.ofSeconds(5));
+        ProceedingJoinPoint joinPoint = joinPoint(null);
+
+        Future<Object> leader = call(aspect, joinPoint);
+        started.await(5, TimeUnit.SECONDS);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        try {
+            assertThat(aspect.coalesce(joinPoint)).isSameAs(DIRECT);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(LEADER);
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(count("follower")).isEqualTo(0);
+        assertThat(count("leader")).isEqualTo(1);
+    }
+
+    /**
+     * @param failure null 이 아니면 leader 의 조회가 이 예외로 끝난다.
+     */
+    private ProceedingJoinPoint joinPoint(RuntimeException failure) throws Throwable {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn("search");
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{condition});
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 1) {
+                return DIRECT;
+            }
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            if (failure != null) {
+                throw failure;
+            }
+            return LEADER;
+        });
+        return joinPoint;
+    }
+
+    private Future<Object> call(MemberSearchCoalescingAspect aspect, ProceedingJoinPoint joinPoint) {
+        return executor.submit(() -> {
+            try {
+                return aspect.coalesce(joinPoint);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private double count(String role) {
+        return registry.get("member.search.coalescing").tag("role", role).counter().count();
+    }
+
+    private double ratio() {
+        return registry.get("member.search.coalescing.ratio").gauge().value();
+    }
+
+    private void awaitCount(String role, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count(role) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(count(role)).isEqualTo(expected);
+    }
+
+    @Test
+    public void aspectOrder() {
+        // 바깥부터 metrics -> 결과 캐시 -> single-flight
+        Integer metrics = OrderUtils.getOrder(MemberRepositoryMetricsAspect.class);
+        Integer cache = OrderUtils.getOrder(MemberSearchCacheAspect.class);
+        Integer coalescing = OrderUtils.getOrder(MemberSearchCoalescingAspect.class);
+
+        assertThat(metrics).isNotNull();
+        assertThat(cache).isNotNull().isGreaterThan(metrics);
+        assertThat(coalescing).isNotNull().isGreaterThan(cache);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberBulkLoadResult;
+import study.querydsl.dto.MemberImportRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.MemberDataChangedEvent;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ChangeEventCounter changeEventCounter;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ChangeEventCounter changeEventCounter() {
+            return new ChangeEventCounter();
+        }
+    }
+
+    static class ChangeEventCounter {
+        final AtomicInteger count = new AtomicInteger();
+
+        @EventListener
+        public void onChange(MemberDataChangedEvent event) {
+            count.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void load() {
+        List<MemberImportRow> rows = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            rows.add(MemberImportRow.parseCsv("bulk" + i + "," + i + "," + (i % 2 == 0 ? "bulkTeamA" : "bulkTeamB")));
+        }
+
+        int eventsBefore = changeEventCounter.count.get();
+        MemberBulkLoadResult result = memberBulkLoader.load(rows.iterator());
+
+        assertThat(result.getRows()).isEqualTo(250);
+        // 건마다가 아니라 바뀐 엔티티 타입(Team, Member)별로 한번씩
+        assertThat(changeEventCounter.count.get() - eventsBefore).isEqualTo(2);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeamA");
+        List<MemberTeamDto> teamA = memberRepository.search(condition);
+        assertThat(teamA).hasSize(125);
+        assertThat(teamA).extracting("teamName").containsOnly("bulkTeamA");
+    }
+}